@@ -0,0 +1,82 @@
+package io.github.jonloucks.concurrency.api;
+
+import io.github.jonloucks.contracts.api.AutoClose;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Responsibility: tell running work that the result it is producing is no longer wanted.
+ * Work stops cooperatively by checking the token, or opts in to being interrupted.
+ */
+public interface Cancellation {
+    
+    /**
+     * The token of work that can not be cancelled
+     */
+    Cancellation NONE = new Cancellation() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+        
+        @Override
+        public AutoClose onCancel(Runnable action) {
+            return AutoClose.NONE;
+        }
+    };
+    
+    /**
+     * @return true if the work has been cancelled
+     */
+    boolean isCancelled();
+    
+    /**
+     * Run an action once when cancelled, immediately if already cancelled
+     *
+     * @param action the action
+     * @return closing removes the action if it has not run
+     * @throws IllegalArgumentException if action is null
+     */
+    AutoClose onCancel(Runnable action);
+    
+    /**
+     * Stop cooperatively at a convenient point
+     *
+     * @throws CancellationException if the work has been cancelled
+     */
+    default void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Work was cancelled.");
+        }
+    }
+    
+    /**
+     * Interrupt the current thread if cancelled before the returned AutoClose is closed
+     *
+     * @return closing stops the interruption
+     */
+    default AutoClose interruptOnCancel() {
+        final AtomicReference<Thread> thread = new AtomicReference<>(Thread.currentThread());
+        final AutoClose closeAction = onCancel(() -> {
+            final Thread interrupted = thread.getAndSet(null);
+            if (interrupted != null) {
+                interrupted.interrupt();
+            }
+        });
+        return () -> {
+            thread.set(null);
+            closeAction.close();
+        };
+    }
+    
+    /**
+     * Find the token for work that reports to an OnCompletion, such as the delegate of completeLater
+     *
+     * @param onCompletion the OnCompletion the work reports to
+     * @return the token of the Completable, or {@link #NONE} if it is not a Completable
+     */
+    static Cancellation of(OnCompletion<?> onCompletion) {
+        return onCompletion instanceof Completable ? ((Completable<?>) onCompletion).getCancellation() : NONE;
+    }
+}
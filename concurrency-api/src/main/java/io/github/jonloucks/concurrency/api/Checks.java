@@ -68,6 +68,8 @@ public final class Checks {
         contracts.claim(CompletionFactory.CONTRACT);
         contracts.claim(ConcurrencyFactory.CONTRACT);
         contracts.claim(StateMachineFactory.CONTRACT);
+        contracts.claim(StateMachineSnapshot.CONTRACT);
+        contracts.claim(StateMachineJournalFactory.CONTRACT);
         contracts.claim(WaitableFactory.CONTRACT);
     }
     
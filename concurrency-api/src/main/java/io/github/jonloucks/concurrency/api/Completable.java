@@ -2,7 +2,11 @@ package io.github.jonloucks.concurrency.api;
 
 import io.github.jonloucks.contracts.api.AutoOpen;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /**
  * Responsibility: Observe a single activity from start to finish
@@ -31,17 +35,132 @@ public interface Completable<T> extends AutoOpen, CompletionNotify<T>, OnComplet
      */
     Optional<Completion<T>> getCompletion();
     
+    /**
+     * A CompletionStage sharing the completion of this Completable.
+     * Succeeded completes the stage with the value, failed completes it exceptionally and cancelled cancels it.
+     * Completing or cancelling the stage completes this Completable, if it is open.
+     *
+     * @return the CompletionStage, the same instance on every call
+     */
+    CompletionStage<T> toCompletionStage();
+    
+    /**
+     * The token that tells the work completing this Completable it has been cancelled.
+     * Cancellation is a {@link Completion.State#CANCELLED} completion, dependents are cancelled with it.
+     *
+     * @return the cancellation token
+     */
+    Cancellation getCancellation();
+    
+    /**
+     * Transform the value of a successful completion, running inline on the completing thread,
+     * or on the calling thread if already complete.
+     * Failed and cancelled completions are passed on unchanged.
+     *
+     * @param function transforms the value, a thrown exception fails the dependent
+     * @return the opened dependent Completable
+     * @param <R> the type of the dependent value
+     * @throws IllegalArgumentException if function is null
+     */
+    <R> Completable<R> thenApply(Function<? super T, ? extends R> function);
+    
+    /**
+     * Transform the value of a successful completion on an executor
+     *
+     * @param function transforms the value, a thrown exception fails the dependent
+     * @param executor runs the function, a rejection fails the dependent
+     * @return the opened dependent Completable
+     * @param <R> the type of the dependent value
+     * @throws IllegalArgumentException if function or executor is null
+     */
+    <R> Completable<R> thenApply(Function<? super T, ? extends R> function, Executor executor);
+    
+    /**
+     * Continue a successful completion with another Completable, running inline on the completing thread,
+     * or on the calling thread if already complete.
+     * Failed and cancelled completions are passed on unchanged.
+     *
+     * @param function returns the Completable the dependent completes like
+     * @return the opened dependent Completable
+     * @param <R> the type of the dependent value
+     * @throws IllegalArgumentException if function is null
+     */
+    <R> Completable<R> thenCompose(Function<? super T, ? extends Completable<R>> function);
+    
+    /**
+     * Continue a successful completion with another Completable on an executor
+     *
+     * @param function returns the Completable the dependent completes like
+     * @param executor runs the function, a rejection fails the dependent
+     * @return the opened dependent Completable
+     * @param <R> the type of the dependent value
+     * @throws IllegalArgumentException if function or executor is null
+     */
+    <R> Completable<R> thenCompose(Function<? super T, ? extends Completable<R>> function, Executor executor);
+    
+    /**
+     * Observe the completion, running inline on the completing thread,
+     * or on the calling thread if already complete.
+     *
+     * @param action receives the completion, a thrown exception fails a successful dependent
+     * @return the opened dependent Completable, completed like this one after the action
+     * @throws IllegalArgumentException if action is null
+     */
+    Completable<T> whenComplete(OnCompletion<T> action);
+    
+    /**
+     * Observe the completion on an executor
+     *
+     * @param action receives the completion, a thrown exception fails a successful dependent
+     * @param executor runs the action, a rejection fails the dependent
+     * @return the opened dependent Completable, completed like this one after the action
+     * @throws IllegalArgumentException if action or executor is null
+     */
+    Completable<T> whenComplete(OnCompletion<T> action, Executor executor);
+    
     /**
      * Configuration used to create a new Completable
      * @param <T> the type of value
      */
     interface Config<T> {
         
+        /**
+         * The time allowed from opening until completion.
+         * When the deadline passes the Completable completes with the timeout state
+         * and a {@link java.util.concurrent.TimeoutException}.
+         *
+         * @return the timeout, or empty if the Completable never times out
+         */
+        default Optional<Duration> getTimeout() {
+            return Optional.empty();
+        }
+        
+        /**
+         * @return the state of the completion when the deadline passes, FAILED or CANCELLED
+         */
+        default Completion.State getTimeoutState() {
+            return Completion.State.FAILED;
+        }
+        
         /**
          * Configuration builder used to create a new Completeable
          * @param <T> the type of value
          */
         interface Builder<T> extends Config<T> {
+            
+            /**
+             * @param timeout the time allowed from opening until completion
+             * @return this builder
+             * @throws IllegalArgumentException if timeout is null or negative
+             */
+            Builder<T> timeout(Duration timeout);
+            
+            /**
+             * @param timeoutState the state of the completion when the deadline passes
+             * @return this builder
+             * @throws IllegalArgumentException if timeoutState is null, or not FAILED or CANCELLED
+             */
+            Builder<T> timeoutState(Completion.State timeoutState);
         }
     }
 }
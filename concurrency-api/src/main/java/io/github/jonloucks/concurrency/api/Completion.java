@@ -140,6 +140,11 @@ public interface Completion<T> {
             return false;
         }
         
+        @Override
+        public boolean canEverTransition(State goal) {
+            return canTransition("any", goal); // the event is not considered
+        }
+        
         /**
          * @return true of state is a completed state.
          */
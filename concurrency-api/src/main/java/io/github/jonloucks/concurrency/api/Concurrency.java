@@ -3,6 +3,10 @@ package io.github.jonloucks.concurrency.api;
 import io.github.jonloucks.contracts.api.*;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -74,6 +78,40 @@ public interface Concurrency extends AutoOpen {
      */
     <T> Completable<T> createCompletable(Consumer<Completable.Config.Builder<T>> builderConsumer);
     
+    /**
+     * Adapt a CompletionStage to an opened Completable.
+     * An exceptional completion of the stage is failed, or cancelled when caused by cancellation.
+     * Cancelling the Completable first cancels the stage.
+     * A stage returned by {@link Completable#toCompletionStage()} gives back its own Completable.
+     *
+     * @param stage the CompletionStage
+     * @return the Completable
+     * @param <T> the type of completion value
+     * @throws IllegalArgumentException if stage is null
+     */
+    <T> Completable<T> fromFuture(CompletionStage<T> stage);
+    
+    /**
+     * Combine Completables into one that succeeds when all of them succeed.
+     * The first one that fails or is cancelled decides the combined completion instead.
+     *
+     * @param completables the Completables, an empty list succeeds immediately
+     * @return the opened combined Completable
+     * @throws IllegalArgumentException if completables is null or contains null
+     */
+    Completable<Void> allOf(List<? extends Completable<?>> completables);
+    
+    /**
+     * Combine Completables into one that completes like the first of them to complete.
+     * The subscriptions to the others are closed once the combined completion is decided.
+     *
+     * @param completables the Completables
+     * @return the opened combined Completable
+     * @param <T> the type of completion value
+     * @throws IllegalArgumentException if completables is null, empty or contains null
+     */
+    <T> Completable<T> anyOf(List<? extends Completable<? extends T>> completables);
+    
     /**
      * Create a new Completion
      *
@@ -95,7 +133,9 @@ public interface Concurrency extends AutoOpen {
     /**
      * Guaranteed execution: complete later block.
      * Either the delegate successfully takes ownership of the OnCompletion or
-     * a final {@link io.github.jonloucks.concurrency.api.Completion.State#FAILED} completion is dispatched
+     * a final {@link io.github.jonloucks.concurrency.api.Completion.State#FAILED} completion is dispatched.
+     * The delegate is not called if the OnCompletion is an already cancelled Completable,
+     * otherwise it can follow cancellation with {@link Cancellation#of(OnCompletion)}.
      *
      * @param onCompletion the OnCompletion callback
      * @param delegate the intended delegate to receive the OnCompletion
@@ -108,6 +148,8 @@ public interface Concurrency extends AutoOpen {
      * When this method finishes, it is guaranteed the OnCompletion will have received a final completion.
      * Exceptions will result in a {@link io.github.jonloucks.concurrency.api.Completion.State#FAILED} completion
      * Exceptions will be rethrown.
+     * The block is not run if the OnCompletion is an already cancelled Completable,
+     * a {@link java.util.concurrent.CancellationException} is thrown instead.
      *
      * @param onCompletion the OnCompletion callback
      * @param successBlock executed to determine the final completion value for an activity
@@ -115,6 +157,91 @@ public interface Concurrency extends AutoOpen {
      * @param <T> the completion value type
      */
     <T> T completeNow(OnCompletion<T> onCompletion, Supplier<T> successBlock);
+    
+    /**
+     * Guaranteed execution: complete later block, with the delegate run by an executor.
+     * If the executor rejects the delegate a final {@link io.github.jonloucks.concurrency.api.Completion.State#FAILED}
+     * completion is dispatched with the rejection.
+     *
+     * @param onCompletion the OnCompletion callback
+     * @param delegate the intended delegate to receive the OnCompletion
+     * @param executor runs the delegate, for example {@link #getExecutor()}
+     * @param <T> the completion value type
+     * @throws IllegalArgumentException if onCompletion, delegate or executor is null
+     */
+    <T> void completeLater(OnCompletion<T> onCompletion, Consumer<OnCompletion<T>> delegate, Executor executor);
+    
+    /**
+     * Guaranteed execution: complete now block, with the block run by an executor.
+     * When the block finishes the OnCompletion will have received a final completion,
+     * exceptions result in a {@link io.github.jonloucks.concurrency.api.Completion.State#FAILED} completion.
+     * If the executor rejects the block a final FAILED completion is dispatched with the rejection.
+     *
+     * @param onCompletion the OnCompletion callback
+     * @param successBlock executed to determine the final completion value for an activity
+     * @param executor runs the block, for example {@link #getExecutor()}
+     * @param <T> the completion value type
+     * @throws IllegalArgumentException if onCompletion, successBlock or executor is null
+     */
+    <T> void completeNow(OnCompletion<T> onCompletion, Supplier<T> successBlock, Executor executor);
+    
+    /**
+     * The executor built from {@link Config#executionPolicy()}, threads are started on demand
+     * and stopped when this Concurrency is closed.
+     *
+     * @return the shared executor, a full queue is reported as a {@link java.util.concurrent.RejectedExecutionException}
+     */
+    Executor getExecutor();
+    
+    /**
+     * @return the report of closing this Concurrency, empty until closed
+     */
+    Optional<ShutdownReport> getShutdownReport();
+    
+    /**
+     * How closing went. Close stops accepting new work, drains in-flight Completables, executor tasks
+     * and scheduled tasks for up to {@link Config#shutdownTimeout()}, then shuts down the Waitables it created
+     * so no waiter is left blocked.
+     */
+    interface ShutdownReport {
+        
+        /**
+         * The phases of closing, in order
+         */
+        enum Phase {
+            /**
+             * The shared executor stops accepting work
+             */
+            STOP,
+            /**
+             * Waiting for in-flight Completables and executor tasks
+             */
+            DRAIN,
+            /**
+             * Running scheduled tasks due before the shutdown timeout, later ones are cancelled
+             */
+            SCHEDULED,
+            /**
+             * Shutting down the Waitables created by the Concurrency
+             */
+            WAITABLES,
+            /**
+             * Closing the contracts repository
+             */
+            REPOSITORY
+        }
+        
+        /**
+         * @param phase the phase
+         * @return the time spent in the phase
+         */
+        Duration getDuration(Phase phase);
+        
+        /**
+         * @return true if all in-flight work and scheduled tasks finished within the shutdown timeout
+         */
+        boolean isDrained();
+    }
     /**
      * The configuration used to create a new Concurrency instance.
      */
@@ -161,7 +288,7 @@ public interface Concurrency extends AutoOpen {
         }
         
         /**
-         * How long to wait for logging to shut down before giving up
+         * How long closing waits for in-flight work and scheduled tasks to drain before giving up
          *
          * @return the timeout duration
          */
@@ -169,6 +296,45 @@ public interface Concurrency extends AutoOpen {
             return Duration.ofSeconds(60);
         }
         
+        /**
+         * How work submitted to {@link Concurrency#getExecutor()} is run
+         */
+        enum ExecutionPolicy {
+            /**
+             * A fixed pool of platform threads with a bounded queue
+             */
+            PLATFORM_POOL,
+            /**
+             * A dedicated work stealing ForkJoinPool
+             */
+            FORK_JOIN,
+            /**
+             * A new thread for each task, virtual threads when the runtime supports them
+             */
+            THREAD_PER_TASK
+        }
+        
+        /**
+         * @return the execution policy of the shared executor
+         */
+        default ExecutionPolicy executionPolicy() {
+            return ExecutionPolicy.PLATFORM_POOL;
+        }
+        
+        /**
+         * @return the number of threads of a pooled execution policy
+         */
+        default int executionThreads() {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        
+        /**
+         * @return the maximum number of tasks waiting to run, beyond that work is rejected
+         */
+        default int executionQueueSize() {
+            return 10_000;
+        }
+        
         /**
          * The Concurrency configuration
          */
@@ -214,6 +380,24 @@ public interface Concurrency extends AutoOpen {
              * @return this builder
              */
             Builder serviceLoaderClass(Class<? extends ConcurrencyFactory> serviceLoaderClass);
+            
+            /**
+             * @param executionPolicy how work submitted to the shared executor is run
+             * @return this builder
+             */
+            Builder executionPolicy(ExecutionPolicy executionPolicy);
+            
+            /**
+             * @param executionThreads the number of threads of a pooled execution policy, at least one
+             * @return this builder
+             */
+            Builder executionThreads(int executionThreads);
+            
+            /**
+             * @param executionQueueSize the maximum number of tasks waiting to run, at least one
+             * @return this builder
+             */
+            Builder executionQueueSize(int executionQueueSize);
         }
     }
 }
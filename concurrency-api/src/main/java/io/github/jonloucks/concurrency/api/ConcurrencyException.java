@@ -28,6 +28,29 @@ public class ConcurrencyException extends RuntimeException {
         super(messageCheck(message), thrown);
     }
     
+    /**
+     * Passthrough for {@link RuntimeException#RuntimeException(String, Throwable, boolean, boolean)}
+     *
+     * @param message the message for this exception
+     * @param thrown  the cause of this exception, null is allowed
+     * @param writableStackTrace if false there is no stack trace and no suppressed exceptions
+     */
+    protected ConcurrencyException(String message, Throwable thrown, boolean writableStackTrace) {
+        super(messageCheck(message), thrown, writableStackTrace, writableStackTrace);
+    }
+    
+    /**
+     * Create an exception without a stack trace, for failures that are expected at a high rate.
+     * It holds no state per throw, so it can be created once and shared, for example as the
+     * thrown of every load shedding failed completion.
+     *
+     * @param message the message for this exception
+     * @return the stackless exception
+     */
+    public static ConcurrencyException stackless(String message) {
+        return new ConcurrencyException(message, null, false);
+    }
+    
     /**
      * Rethrows a caught exception or a ConcurrencyException if unchecked
      *
@@ -2,7 +2,10 @@ package io.github.jonloucks.concurrency.api;
 
 import io.github.jonloucks.contracts.api.AutoClose;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -61,6 +64,41 @@ public final class GlobalConcurrency {
         return INSTANCE.concurrency.createCompletable(builderConsumer);
     }
     
+    /**
+     * Adapt a CompletionStage to an opened Completable
+     *
+     * @param stage the CompletionStage
+     * @return the Completable
+     * @param <T> the type of completion value
+     * @see Concurrency#fromFuture(CompletionStage)
+     */
+    public static <T> Completable<T> fromFuture(CompletionStage<T> stage) {
+        return INSTANCE.concurrency.fromFuture(stage);
+    }
+    
+    /**
+     * Combine Completables into one that succeeds when all of them succeed
+     *
+     * @param completables the Completables
+     * @return the opened combined Completable
+     * @see Concurrency#allOf(List)
+     */
+    public static Completable<Void> allOf(List<? extends Completable<?>> completables) {
+        return INSTANCE.concurrency.allOf(completables);
+    }
+    
+    /**
+     * Combine Completables into one that completes like the first of them to complete
+     *
+     * @param completables the Completables
+     * @return the opened combined Completable
+     * @param <T> the type of completion value
+     * @see Concurrency#anyOf(List)
+     */
+    public static <T> Completable<T> anyOf(List<? extends Completable<? extends T>> completables) {
+        return INSTANCE.concurrency.anyOf(completables);
+    }
+    
     /**
      * Create a new Completion
      *
@@ -110,6 +148,30 @@ public final class GlobalConcurrency {
     public static <T> T completeNow(OnCompletion<T> onCompletion, Supplier<T> successBlock) {
         return INSTANCE.concurrency.completeNow(onCompletion, successBlock);
     }
+    
+    /**
+     * Guaranteed execution: complete later block, with the delegate run by the shared executor
+     *
+     * @param onCompletion the OnCompletion callback
+     * @param delegate the intended delegate to receive the OnCompletion
+     * @param <T> the completion value type
+     * @see Concurrency#completeLater(OnCompletion, Consumer, Executor)
+     */
+    public static <T> void completeLaterAsync(OnCompletion<T> onCompletion, Consumer<OnCompletion<T>> delegate) {
+        INSTANCE.concurrency.completeLater(onCompletion, delegate, INSTANCE.concurrency.getExecutor());
+    }
+    
+    /**
+     * Guaranteed execution: complete now block, with the block run by the shared executor
+     *
+     * @param onCompletion the OnCompletion callback
+     * @param successBlock executed to determine the final completion value for an activity
+     * @param <T> the completion value type
+     * @see Concurrency#completeNow(OnCompletion, Supplier, Executor)
+     */
+    public static <T> void completeNowAsync(OnCompletion<T> onCompletion, Supplier<T> successBlock) {
+        INSTANCE.concurrency.completeNow(onCompletion, successBlock, INSTANCE.concurrency.getExecutor());
+    }
 
     /**
      * Return the global instance of Contracts
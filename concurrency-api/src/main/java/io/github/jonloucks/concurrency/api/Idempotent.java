@@ -86,6 +86,16 @@ public enum Idempotent implements StateMachine.Rule<Idempotent> {
         return false;
     }
     
+    @Override
+    public boolean canEverTransition(Idempotent goal) {
+        return canTransition("any", goal); // the event is not considered
+    }
+    
+    @Override
+    public boolean isPure() {
+        return true;
+    }
+    
     /**
      * Determines if new requests/action should be rejected
      *
@@ -150,4 +160,44 @@ public enum Idempotent implements StateMachine.Rule<Idempotent> {
             .failedValue(() -> AutoClose.NONE)
         );
     }
+    
+    /**
+     * Prepare an idempotent close once for a caller that executes it repeatedly, see {@link #withClose(StateMachine, AutoClose)}
+     *
+     * @param machine the StateMachine
+     * @param close the close
+     * @return the prepared close
+     * @throws IllegalArgumentException if machine or close is null
+     */
+    public static StateMachine.PreparedTransition<Void> prepareClose(StateMachine<Idempotent> machine, AutoClose close) {
+        final StateMachine<Idempotent> validMachine = stateMachineCheck(machine);
+        final AutoClose validClose = nullCheck(close, "Close must be present.");
+        
+        return validMachine.prepare(b -> b
+            .event("close")
+            .successState(Idempotent.CLOSED)
+            .successValue(validClose::close)
+            .failedValue(() -> null)
+            .errorValue(() -> null));
+    }
+    
+    /**
+     * Prepare an idempotent open once for a caller that executes it repeatedly, see {@link #withOpen(StateMachine, AutoOpen)}
+     *
+     * @param machine the state machine
+     * @param open the open
+     * @return the prepared open
+     * @throws IllegalArgumentException if machine or open is null
+     */
+    public static StateMachine.PreparedTransition<AutoClose> prepareOpen(StateMachine<Idempotent> machine, AutoOpen open) {
+        final StateMachine<Idempotent> validMachine = stateMachineCheck(machine);
+        final AutoOpen validOpen = nullCheck(open, "Open must be present.");
+        
+        return validMachine.prepare(b -> b
+            .event("open")
+            .successState(Idempotent.OPENED)
+            .successValue(validOpen::open)
+            .failedValue(() -> AutoClose.NONE)
+        );
+    }
 }
@@ -1,10 +1,19 @@
 package io.github.jonloucks.concurrency.api;
 
+import io.github.jonloucks.contracts.api.AutoClose;
+
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
 /**
  * State machine.
  * User defined states with rules to restrict state transitions.
@@ -23,6 +32,62 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
      */
     boolean setState(String event, T state);
     
+    /**
+     * Set the current state if allowed and report why not otherwise.
+     * Unlike {@link #transition(Transition)} nothing is thrown for an unknown state or a transition that is not allowed.
+     *
+     * @param event the event name
+     * @param state the new state
+     * @return the outcome, the state was changed only if it is {@link TransitionResult#OK}
+     * @throws IllegalArgumentException when event is null or state is null
+     */
+    TransitionResult tryTransition(String event, T state);
+    
+    /**
+     * The outcome of {@link #tryTransition(String, Object)}
+     */
+    enum TransitionResult {
+        /**
+         * The state was changed
+         */
+        OK,
+        /**
+         * The transition is not allowed from the current state
+         */
+        ILLEGAL,
+        /**
+         * The state is not known by the state machine
+         */
+        UNKNOWN_STATE,
+        /**
+         * The state machine was already in the state
+         */
+        SAME_STATE
+    }
+    
+    /**
+     * Apply a sequence of events in order, stopping at the first one that is not allowed.
+     * The sequence is committed as one change, waiting threads are woken and listeners are notified
+     * once with the final state.
+     *
+     * @param events the event name and state pairs to apply in order
+     * @return the number of events applied, which is also the index of the first event not applied
+     * @throws IllegalArgumentException when events is null, or an event or state is null, or a state is unknown
+     */
+    int applyAll(List<Map.Entry<String, T>> events);
+    
+    /**
+     * Set the current state on the configured executor, state must already exist and be an allowed transition.
+     * When the state machine is a single writer, requests are queued and applied in order by one thread at a time.
+     * Synchronous calls such as {@link #setState(String, Object)} are not queued and may apply between queued requests.
+     *
+     * @param event the event name
+     * @param state the new state
+     * @return the Completable that receives true if the state was changed
+     * @throws IllegalArgumentException when event is null, state is null, or unknown
+     */
+    Completable<Boolean> setStateAsync(String event, T state);
+    
     /**
      * Get the current state
      *
@@ -41,6 +106,16 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
      */
     boolean hasState(T state);
     
+    /**
+     * Determine if the current state is the given state or one of its descendants.
+     * For example, if the current state has a parent, then the machine is also in the parent state.
+     *
+     * @param state the state to check
+     * @return true iif the current state is the given state or a descendant of it
+     * @throws IllegalArgumentException when state is null
+     */
+    boolean isInState(T state);
+    
     /**
      * Determine if a transition is allowed from the current state to a new one.
      *
@@ -51,6 +126,71 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
      */
     boolean isTransitionAllowed(String event, T state);
     
+    /**
+     * Receive each committed change from one state to another, listeners of other changes are not invoked.
+     * States match exactly as left and entered, a composite state is entered through its initial child.
+     * Each step of a sequence applied by {@link #applyAll(List)} is one change, reported once the sequence is committed.
+     * Note: the listener is called within the state lock, the same as {@link #notifyIf}
+     *
+     * @param from     the state being left
+     * @param to       the state being entered, a composite state matches its initial child
+     * @param event    the event name, or null for any event
+     * @param listener receives each matching change
+     * @return AutoClose which removes the listener
+     * @throws IllegalArgumentException when from, to or listener is null, a state is unknown, or from is composite
+     */
+    AutoClose notifyOnTransition(T from, T to, String event, Consumer<TransitionEvent<T>> listener);
+    
+    /**
+     * A committed change from one state to another
+     *
+     * @param <T> the type of each state
+     */
+    interface TransitionEvent<T> {
+        
+        /**
+         * @return the state that was left
+         */
+        T getFrom();
+        
+        /**
+         * @return the state that was entered
+         */
+        T getTo();
+        
+        /**
+         * @return the event that caused the change
+         */
+        String getEvent();
+        
+        /**
+         * @return when the change was committed
+         */
+        Instant getTimestamp();
+    }
+    
+    /**
+     * Analyze the reachability of the states of this StateMachine.
+     *
+     * @return the analysis
+     * @see #getWhenReachable(Predicate, Duration)
+     */
+    Analysis<T> analyze();
+    
+    /**
+     * Wait for a state that satisfies the predicate, giving up as soon as no such state can be reached.
+     * Note: the predicate is also evaluated against states that are not current, so it must not have side effects.
+     * The default waits the same as {@link #getWhen(Predicate, Duration)}.
+     *
+     * @param predicate the predicate to wait for
+     * @param timeout   the maximum time to wait
+     * @return the state if the predicate was satisfied
+     * @throws IllegalArgumentException when predicate or timeout is null
+     */
+    default Optional<T> getWhenReachable(Predicate<T> predicate, Duration timeout) {
+        return getWhen(predicate, timeout);
+    }
+    
     /**
      * Execute a transition from the current state to another
      *
@@ -72,6 +212,70 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
      */
     <R> R transition(Transition<T, R> transition);
     
+    /**
+     * Execute a transition from the current state to another on the configured executor.
+     * The success value is computed off the calling thread and the new state is entered after it completes.
+     * The error and failed states are applied the same as {@link #transition(Transition)}.
+     *
+     * @param builderConsumer the transition builder consumer
+     * @param <B>             the transition return value
+     * @param <R>             the return type of the transition
+     * @return the Completable that receives the transition outcome
+     * @throws IllegalArgumentException when builderConsumer is null or required fields are not present.
+     */
+    <B extends Transition.Builder<B, T, R>, R> Completable<R> transitionAsync(Consumer<Transition.Builder<B, T, R>> builderConsumer);
+    
+    /**
+     * Execute a transition from the current state to another on the configured executor.
+     * The success value is computed off the calling thread and the new state is entered after it completes.
+     * The error and failed states are applied the same as {@link #transition(Transition)}.
+     *
+     * @param transition the transition to execute
+     * @param <R>        the return type of the transition
+     * @return the Completable that receives the transition outcome
+     * @throws IllegalArgumentException when transition is null or required fields are not present.
+     */
+    <R> Completable<R> transitionAsync(Transition<T, R> transition);
+    
+    /**
+     * Validate a transition once so it can be executed many times.
+     * The states, values and rules of the transition are resolved now instead of on each execution.
+     *
+     * @param builderConsumer the transition builder consumer
+     * @param <B>             the transition return value
+     * @param <R>             the return type of the transition
+     * @return the prepared transition
+     * @throws IllegalArgumentException when builderConsumer is null or required fields are not present.
+     */
+    <B extends Transition.Builder<B, T, R>, R> PreparedTransition<R> prepare(Consumer<Transition.Builder<B, T, R>> builderConsumer);
+    
+    /**
+     * Validate a transition once so it can be executed many times.
+     * The states, values and rules of the transition are resolved now instead of on each execution.
+     *
+     * @param transition the transition to prepare
+     * @param <R>        the return type of the transition
+     * @return the prepared transition
+     * @throws IllegalArgumentException when transition is null or required fields are not present.
+     */
+    <R> PreparedTransition<R> prepare(Transition<T, R> transition);
+    
+    /**
+     * An immutable, validated transition bound to one StateMachine
+     *
+     * @param <R> the return type of the transition
+     */
+    interface PreparedTransition<R> {
+        
+        /**
+         * Execute the transition the same as {@link #transition(Transition)}, without allocating
+         * or validating again
+         *
+         * @return the transition return value
+         */
+        R execute();
+    }
+    
     /**
      * Defines how a transition between states will be done
      *
@@ -123,6 +327,16 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
         default Optional<Supplier<R>> getFailedValue() {
             return Optional.empty();
         }
+        
+        /**
+         * When a transition is not allowed and there is no failed value a ConcurrencyException is thrown.
+         * A stackless exception is cheap enough for call sites where rejection is an expected, frequent outcome.
+         *
+         * @return true if the exception for a transition that is not allowed has no stack trace
+         */
+        default boolean isStackless() {
+            return false;
+        }
    
         /**
          * Responsible for building a Transition
@@ -195,6 +409,14 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
              * @return this builder
              */
             Builder<B, S, R> failedValue(Supplier<R> valueSupplier);
+            
+            /**
+             * Choose a stackless exception when the goal state is not allowed and there is no failed value
+             *
+             * @param stackless true for an exception without a stack trace
+             * @return this builder
+             */
+            Builder<B, S, R> stackless(boolean stackless);
         }
     }
     
@@ -211,6 +433,122 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
          * @return true if the transition is valid
          */
         boolean canTransition(String event, T goal);
+        
+        /**
+         * Determine if 'this' state could transition to the target for any event.
+         * Used to analyze which states are reachable, the default assumes the transition is possible.
+         *
+         * @param goal the goal state
+         * @return false only if no event could make the transition valid
+         */
+        default boolean canEverTransition(T goal) {
+            return true;
+        }
+        
+        /**
+         * Determine if decisions depend only on 'this' state, the event and the goal.
+         * Decisions of pure rules are remembered by the StateMachine instead of asked again.
+         *
+         * @return true if the same arguments always give the same decision, the default is false
+         */
+        default boolean isPure() {
+            return false;
+        }
+        
+        /**
+         * Declare a rule as pure, for example a lambda
+         *
+         * @param rule the rule whose decisions depend only on 'this' state, the event and the goal
+         * @param <T>  the type of each state
+         * @return the pure rule
+         * @throws IllegalArgumentException when rule is null
+         */
+        static <T> Rule<T> pure(Rule<T> rule) {
+            final Rule<T> validRule = nullCheck(rule, "Rule must be present.");
+            return new Rule<T>() {
+                @Override
+                public boolean canTransition(String event, T goal) {
+                    return validRule.canTransition(event, goal);
+                }
+                
+                @Override
+                public boolean canEverTransition(T goal) {
+                    return validRule.canEverTransition(goal);
+                }
+                
+                @Override
+                public boolean isPure() {
+                    return true;
+                }
+            };
+        }
+    }
+    
+    /**
+     * A compiled StateMachine configuration that is shared, unchanged, by every StateMachine it creates.
+     * Each created StateMachine only holds its current state, waiters and listeners.
+     *
+     * @param <T> the type of each state
+     */
+    interface Template<T> {
+        
+        /**
+         * Create a new StateMachine in the initial state
+         *
+         * @return the new StateMachine
+         */
+        StateMachine<T> create();
+    }
+    
+    /**
+     * An automatic transition requested when a state has not been left in time
+     *
+     * @param <T> the type of each state
+     */
+    interface Timeout<T> {
+        
+        /**
+         * @return how long the state may remain current before the transition is requested
+         */
+        Duration getDuration();
+        
+        /**
+         * @return the event name of the transition
+         */
+        String getEvent();
+        
+        /**
+         * @return the goal state of the transition
+         */
+        T getState();
+    }
+    
+    /**
+     * The reachability of the states of a StateMachine, derived from the rules of each state
+     *
+     * @param <T> the type of each state
+     */
+    interface Analysis<T> {
+        
+        /**
+         * @return the states that can not be reached from the initial state
+         */
+        List<T> getDeadStates();
+        
+        /**
+         * @return the states that can not transition to any other state
+         */
+        List<T> getTerminalStates();
+        
+        /**
+         * Determine if a state could be reached from another by one or more transitions
+         *
+         * @param from the starting state
+         * @param to   the target state
+         * @return true if the target state could be reached
+         * @throws IllegalArgumentException when from or to is null or unknown
+         */
+        boolean isReachable(T from, T to);
     }
     
     /**
@@ -241,6 +579,61 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
          */
         List<Rule<T>> getStateRules(T state);
         
+        /**
+         * Get the parent of a state. A state with a parent inherits the rules of the parent
+         * when a transition leaves the parent.
+         *
+         * @param state the state
+         * @return the optional parent state
+         */
+        default Optional<T> getParent(T state) {
+            return Optional.empty();
+        }
+        
+        /**
+         * Get the initial child of a composite state. Entering the composite state
+         * enters the initial child instead.
+         *
+         * @param state the composite state
+         * @return the optional initial child state
+         */
+        default Optional<T> getInitial(T state) {
+            return Optional.empty();
+        }
+        
+        /**
+         * The executor used for asynchronous transitions.
+         * If not present, the common fork join pool is used.
+         *
+         * @return the optional executor
+         */
+        default Optional<Executor> getExecutor() {
+            return Optional.empty();
+        }
+        
+        /**
+         * When true, asynchronous requests are queued in a lock free mailbox and
+         * applied in order by one thread at a time instead of competing for the state lock.
+         * Only asynchronous requests are queued, synchronous calls still apply on the calling thread under the state lock.
+         *
+         * @return true if asynchronous requests are applied by a single writer
+         */
+        default boolean isSingleWriter() {
+            return false;
+        }
+        
+        /**
+         * Get the timeout of a state. The transition is requested with the rules applied as usual,
+         * and is cancelled when the state is left first.
+         * A composite state is current while any state within it is, moving between its children does not restart its timeout.
+         *
+         * @param state the state
+         * @return the optional timeout of the state
+         */
+        default Optional<Timeout<T>> getTimeout(T state) {
+            return Optional.empty();
+        }
+        
         /**
          * The Builder for a State Machine
          * @param <T> the type of each state
@@ -284,6 +677,53 @@ public interface StateMachine<T> extends WaitableSupplier<T>, WaitableNotify<T>
              * @return this builder
              */
             Builder<T> rules(T state, List<Rule<T>> rules);
+            
+            /**
+             * Assign the parent of a state, both states are added if not already present
+             *
+             * @param state the child state
+             * @param parent the parent state
+             * @return this builder
+             */
+            Builder<T> parent(T state, T parent);
+            
+            /**
+             * Assign the initial child of a composite state
+             *
+             * @param state the composite state
+             * @param child the initial child, must have the composite state as its parent
+             * @return this builder
+             */
+            Builder<T> initial(T state, T child);
+            
+            /**
+             * Assign the executor used for asynchronous transitions
+             *
+             * @param executor the executor
+             * @return this builder
+             */
+            Builder<T> executor(Executor executor);
+            
+            /**
+             * Assign whether asynchronous requests are applied by a single writer,
+             * synchronous calls are not affected
+             *
+             * @param singleWriter true to queue asynchronous requests and apply them in order
+             * @return this builder
+             */
+            Builder<T> singleWriter(boolean singleWriter);
+            
+            /**
+             * Request a transition when a state has been current for a duration,
+             * both states are added if not already present
+             *
+             * @param state the timed state
+             * @param duration how long the state may remain current
+             * @param event the event name of the transition
+             * @param goal the goal state of the transition
+             * @return this builder
+             */
+            Builder<T> timeout(T state, Duration duration, String event, T goal);
         }
     }
 }
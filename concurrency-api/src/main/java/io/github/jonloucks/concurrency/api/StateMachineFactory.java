@@ -1,6 +1,7 @@
 package io.github.jonloucks.concurrency.api;
 
 import io.github.jonloucks.concurrency.api.StateMachine.Config;
+import io.github.jonloucks.concurrency.api.StateMachine.Template;
 import io.github.jonloucks.contracts.api.Contract;
 import java.util.function.Consumer;
 
@@ -37,6 +38,26 @@ public interface StateMachineFactory {
      */
     <T> StateMachine<T> create(Consumer<Config.Builder<T>> builderConsumer);
     
+    /**
+     * Compile a configuration once so many StateMachines can share it
+     *
+     * @param config the configuration
+     * @return the new Template
+     * @param <T> the type of each state
+     * @throws IllegalArgumentException if config is null or configuration is invalid
+     */
+    <T> Template<T> createTemplate(Config<T> config);
+    
+    /**
+     * Compile a configuration built by callback once so many StateMachines can share it
+     *
+     * @param builderConsumer responsible for building the configuration
+     * @return the new Template
+     * @param <T> the type of each state
+     * @throws IllegalArgumentException if builderConsumer is null or resulting configuration is invalid
+     */
+    <T> Template<T> createTemplate(Consumer<Config.Builder<T>> builderConsumer);
+    
     /**
      * Create a new StateMachine
      *
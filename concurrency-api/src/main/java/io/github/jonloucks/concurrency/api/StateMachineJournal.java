@@ -0,0 +1,117 @@
+package io.github.jonloucks.concurrency.api;
+
+import io.github.jonloucks.contracts.api.AutoClose;
+import io.github.jonloucks.contracts.api.AutoOpen;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Write-ahead journal of committed StateMachine transitions.
+ * Each transition of an attached StateMachine is appended as a fixed size record to a memory mapped
+ * segment file. Records are forced to storage in groups on the commit interval, or on demand by flush.
+ * After a crash, replay restores each StateMachine to the last journaled state.
+ */
+public interface StateMachineJournal extends AutoOpen {
+    
+    /**
+     * Start journaling every committed transition of a StateMachine.
+     * The current state is journaled immediately.
+     *
+     * @param machineId the identifier of the StateMachine, must be stable across restarts
+     * @param stateMachine the StateMachine to journal
+     * @param <T> the type of each state
+     * @return closing stops journaling the StateMachine
+     * @throws IllegalArgumentException when stateMachine is null or not supported
+     * @throws IllegalStateException when the journal is not open
+     */
+    <T> AutoClose attach(long machineId, StateMachine<T> stateMachine);
+    
+    /**
+     * Force all appended records to storage
+     *
+     * @throws ConcurrencyException when the records can not be forced
+     */
+    void flush();
+    
+    /**
+     * Restore StateMachines to the last journaled state.
+     * Rules are not evaluated and listeners are not notified.
+     *
+     * @param stateMachines the StateMachines to restore by machine identifier
+     * @param <T> the type of each state
+     * @return the number of StateMachines restored
+     * @throws IllegalArgumentException when stateMachines is null or contains a StateMachine that is not supported
+     * @throws IllegalStateException when the journal is not open
+     * @throws ConcurrencyException when the journal can not be read
+     */
+    <T> int replay(Map<Long, StateMachine<T>> stateMachines);
+    
+    /**
+     * Rewrite the journal keeping only the last record of each StateMachine and delete the older segments
+     *
+     * @throws IllegalStateException when the journal is not open
+     * @throws ConcurrencyException when the journal can not be rewritten
+     */
+    void compact();
+    
+    /**
+     * StateMachineJournal configuration
+     */
+    interface Config {
+        
+        /**
+         * @return the required directory containing the segment files
+         */
+        Optional<Path> getDirectory();
+        
+        /**
+         * @return the size in bytes of each segment file
+         */
+        default int getSegmentSize() {
+            return 16 * 1024 * 1024;
+        }
+        
+        /**
+         * How often appended records are forced to storage.
+         * Zero forces records as soon as they are appended, without holding up the StateMachine that appended them.
+         *
+         * @return the commit interval
+         */
+        default Duration getCommitInterval() {
+            return Duration.ofMillis(10);
+        }
+        
+        /**
+         * The Builder for a StateMachineJournal
+         */
+        interface Builder extends Config {
+            
+            /**
+             * Assign the required directory
+             *
+             * @param directory the directory containing the segment files
+             * @return this builder
+             */
+            Builder directory(Path directory);
+            
+            /**
+             * Assign the segment size
+             *
+             * @param segmentSize the size in bytes of each segment file
+             * @return this builder
+             */
+            Builder segmentSize(int segmentSize);
+            
+            /**
+             * Assign the commit interval
+             *
+             * @param commitInterval how often appended records are forced to storage
+             * @return this builder
+             */
+            Builder commitInterval(Duration commitInterval);
+        }
+    }
+}
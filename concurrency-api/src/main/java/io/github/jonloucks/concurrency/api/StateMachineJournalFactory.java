@@ -0,0 +1,34 @@
+package io.github.jonloucks.concurrency.api;
+
+import io.github.jonloucks.contracts.api.Contract;
+
+import java.util.function.Consumer;
+
+/**
+ * Responsibility: Creating a new StateMachineJournal
+ */
+public interface StateMachineJournalFactory {
+    
+    /**
+     * The Contract for the StateMachineJournalFactory
+     */
+    Contract<StateMachineJournalFactory> CONTRACT = Contract.create(StateMachineJournalFactory.class);
+    
+    /**
+     * Create a new StateMachineJournal
+     *
+     * @param config the journal configuration
+     * @return the new StateMachineJournal, it must be opened before use
+     * @throws IllegalArgumentException if config is null or configuration is invalid
+     */
+    StateMachineJournal create(StateMachineJournal.Config config);
+    
+    /**
+     * Create a new StateMachineJournal
+     *
+     * @param builderConsumer receives the StateMachineJournal Config Builder
+     * @return the new StateMachineJournal, it must be opened before use
+     * @throws IllegalArgumentException if builderConsumer is null or resulting configuration is invalid
+     */
+    StateMachineJournal create(Consumer<StateMachineJournal.Config.Builder> builderConsumer);
+}
@@ -0,0 +1,45 @@
+package io.github.jonloucks.concurrency.api;
+
+import io.github.jonloucks.contracts.api.Contract;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+
+/**
+ * Writes and restores the current state of many StateMachines in a compact binary format.
+ * Each StateMachine is recorded as a state identifier and a version. The identifier is the enum ordinal
+ * when all states are of one enum type, otherwise the order the state was registered.
+ * The version is the number of state changes, it is restored along with the state.
+ */
+public interface StateMachineSnapshot {
+    
+    /**
+     * The StateMachineSnapshot Contract
+     */
+    Contract<StateMachineSnapshot> CONTRACT = Contract.create(StateMachineSnapshot.class);
+    
+    /**
+     * Write the current state of each StateMachine in order
+     *
+     * @param stateMachines the StateMachines to write
+     * @param channel the channel to write to
+     * @param <T> the type of each state
+     * @throws IllegalArgumentException when stateMachines is null, contains null, or channel is null
+     * @throws ConcurrencyException when the snapshot can not be written
+     */
+    <T> void write(List<StateMachine<T>> stateMachines, WritableByteChannel channel);
+    
+    /**
+     * Restore the state of each StateMachine in the same order it was written.
+     * Rules are not evaluated and listeners are not notified.
+     * The whole snapshot is checked first, no StateMachine is restored unless every one matches.
+     *
+     * @param stateMachines the StateMachines to restore, must be configured the same as when written
+     * @param channel the channel to read from
+     * @param <T> the type of each state
+     * @throws IllegalArgumentException when stateMachines is null, contains null, or channel is null
+     * @throws ConcurrencyException when the snapshot can not be read or does not match the StateMachines
+     */
+    <T> void restore(List<StateMachine<T>> stateMachines, ReadableByteChannel channel);
+}
@@ -0,0 +1,158 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Completable;
+import io.github.jonloucks.concurrency.api.Completion;
+import io.github.jonloucks.concurrency.api.Concurrency;
+import io.github.jonloucks.contracts.api.AutoClose;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.jonloucks.contracts.api.Checks.illegalCheck;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * Combines many Completables into one with a single countdown shared by every input.
+ * Each input gets one arrival that counts at most once, whether it arrives by notification
+ * or because the input was already complete. Once the combined completion is decided
+ * the remaining subscriptions are closed.
+ *
+ * @param <T> the type of the combined completion value
+ */
+final class CombinedCompletable<T> {
+    
+    /**
+     * @param concurrencyConfig the Concurrency configuration
+     * @param scheduler the Concurrency scheduler
+     * @param inFlight the Completables in flight of the Concurrency
+     * @param completables the inputs
+     * @return an opened Completable that succeeds when every input succeeds,
+     * or completes like the first input that does not succeed
+     */
+    static Completable<Void> allOf(Concurrency.Config concurrencyConfig, Scheduler scheduler, InFlight inFlight,
+                                   List<? extends Completable<?>> completables) {
+        final List<? extends Completable<?>> validCompletables = completablesCheck(completables);
+        final CombinedCompletable<Void> combined = new CombinedCompletable<>(
+            new CompletableImpl<>(concurrencyConfig, scheduler, inFlight, new Completable.Config<Void>() {}), validCompletables.size(), false);
+        combined.subscribe(validCompletables);
+        return combined.result;
+    }
+    
+    /**
+     * @param concurrencyConfig the Concurrency configuration
+     * @param scheduler the Concurrency scheduler
+     * @param inFlight the Completables in flight of the Concurrency
+     * @param completables the inputs, at least one
+     * @return an opened Completable that completes like the first input to complete
+     * @param <T> the type of completion value
+     */
+    static <T> Completable<T> anyOf(Concurrency.Config concurrencyConfig, Scheduler scheduler, InFlight inFlight,
+                                    List<? extends Completable<? extends T>> completables) {
+        final List<? extends Completable<? extends T>> validCompletables = completablesCheck(completables);
+        illegalCheck(validCompletables, validCompletables.isEmpty(), "Completables must not be empty.");
+        final CombinedCompletable<T> combined = new CombinedCompletable<>(
+            new CompletableImpl<>(concurrencyConfig, scheduler, inFlight, new Completable.Config<T>() {}), validCompletables.size(), true);
+        combined.subscribe(validCompletables);
+        return combined.result;
+    }
+    
+    private CombinedCompletable(CompletableImpl<T> result, int count, boolean isAny) {
+        this.result = result;
+        this.result.open();
+        this.remaining = new AtomicInteger(count);
+        this.arrivals = new Arrival[count];
+        this.isAny = isAny;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void subscribe(List<? extends Completable<?>> completables) {
+        for (int i = 0; i < arrivals.length; i++) {
+            arrivals[i] = new Arrival(this);
+        }
+        int index = 0;
+        for (Completable<?> completable : completables) {
+            final Arrival arrival = arrivals[index++];
+            final Completable<Object> input = (Completable<Object>) completable;
+            arrival.close = input.notify(arrival::arrive);
+            input.getCompletion().ifPresent(arrival::arrive);
+            if (result.isCompleted()) {
+                break;
+            }
+        }
+        if (arrivals.length == 0) {
+            finish(ImmutableCompletionImpl.of(Completion.State.SUCCEEDED));
+        } else if (result.isCompleted()) {
+            closeAll();
+        }
+    }
+    
+    private void arrive(Completion<?> completion) {
+        if (isAny || completion.getState() != Completion.State.SUCCEEDED) {
+            finish(copy(completion));
+        } else if (remaining.decrementAndGet() == 0) {
+            finish(ImmutableCompletionImpl.of(Completion.State.SUCCEEDED));
+        }
+    }
+    
+    private void finish(Completion<T> completion) {
+        if (result.tryCompletion(completion)) {
+            closeAll();
+        }
+    }
+    
+    private void closeAll() {
+        for (Arrival arrival : arrivals) {
+            if (arrival != null) {
+                arrival.close.close();
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Completion<T> copy(Completion<?> completion) {
+        return ImmutableCompletionImpl.of(completion.getState(),
+            isAny ? (T) completion.getValue().orElse(null) : null,
+            completion.getThrown().orElse(null),
+            null);
+    }
+    
+    private static <C extends List<?>> C completablesCheck(C completables) {
+        final C validCompletables = nullCheck(completables, "Completables must be present.");
+        validCompletables.forEach(completable -> nullCheck(completable, "Completable must be present."));
+        return validCompletables;
+    }
+    
+    private static final class Arrival {
+        
+        private Arrival(CombinedCompletable<?> combined) {
+            this.combined = combined;
+        }
+        
+        private void arrive(Completion<?> completion) {
+            if (ARRIVED.compareAndSet(this, 0, 1)) {
+                combined.arrive(completion);
+            }
+        }
+        
+        private static final VarHandle ARRIVED;
+        
+        static {
+            try {
+                ARRIVED = MethodHandles.lookup().findVarHandle(Arrival.class, "arrived", int.class);
+            } catch (ReflectiveOperationException thrown) {
+                throw new ExceptionInInitializerError(thrown);
+            }
+        }
+        
+        private final CombinedCompletable<?> combined;
+        private volatile int arrived;
+        private volatile AutoClose close = AutoClose.NONE;
+    }
+    
+    private final CompletableImpl<T> result;
+    private final AtomicInteger remaining;
+    private final Arrival[] arrivals;
+    private final boolean isAny;
+}
@@ -0,0 +1,45 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Completable;
+import io.github.jonloucks.concurrency.api.Completion;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static io.github.jonloucks.contracts.api.Checks.illegalCheck;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+import static java.util.Optional.ofNullable;
+
+final class CompletableConfigImpl<T> implements Completable.Config.Builder<T> {
+    @Override
+    public Builder<T> timeout(Duration timeout) {
+        final Duration validTimeout = nullCheck(timeout, "Timeout must be present.");
+        this.timeout = illegalCheck(validTimeout, validTimeout.isNegative(), "Timeout must not be negative.");
+        return this;
+    }
+    
+    @Override
+    public Builder<T> timeoutState(Completion.State timeoutState) {
+        final Completion.State validState = nullCheck(timeoutState, "Timeout state must be present.");
+        this.timeoutState = illegalCheck(validState,
+            validState != Completion.State.FAILED && validState != Completion.State.CANCELLED,
+            "Timeout state must be FAILED or CANCELLED.");
+        return this;
+    }
+    
+    @Override
+    public Optional<Duration> getTimeout() {
+        return ofNullable(timeout);
+    }
+    
+    @Override
+    public Completion.State getTimeoutState() {
+        return timeoutState;
+    }
+    
+    CompletableConfigImpl() {
+    }
+    
+    private Duration timeout;
+    private Completion.State timeoutState = Completion.State.FAILED;
+}
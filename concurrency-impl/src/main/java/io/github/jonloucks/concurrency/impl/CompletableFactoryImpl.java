@@ -13,20 +13,24 @@ final class CompletableFactoryImpl implements CompletableFactory {
     
     @Override
     public <T> Completable<T> createCompletable(Completable.Config<T> config) {
-        return new CompletableImpl<>(this.config, configCheck(config));
+        return new CompletableImpl<>(this.config, scheduler, inFlight, configCheck(config));
     }
     
     @Override
     public <T> Completable<T> createCompletable(Consumer<Completable.Config.Builder<T>> builderConsumer) {
         final Consumer<Completable.Config.Builder<T>> validBuilderConsumer = builderConsumerCheck(builderConsumer);
-        final Completable.Config.Builder<T> builder = new Completable.Config.Builder<>() {};
+        final Completable.Config.Builder<T> builder = new CompletableConfigImpl<>();
         validBuilderConsumer.accept(builder);
         return createCompletable(builder);
     }
     
-    CompletableFactoryImpl(Concurrency.Config config) {
+    CompletableFactoryImpl(Concurrency.Config config, Scheduler scheduler, InFlight inFlight) {
         this.config = config;
+        this.scheduler = scheduler;
+        this.inFlight = inFlight;
     }
     
     private final Concurrency.Config config;
+    private final Scheduler scheduler;
+    private final InFlight inFlight;
 }
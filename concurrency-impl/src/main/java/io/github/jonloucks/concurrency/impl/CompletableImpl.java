@@ -4,30 +4,46 @@ import io.github.jonloucks.concurrency.api.*;
 import io.github.jonloucks.concurrency.api.Completion.State;
 import io.github.jonloucks.contracts.api.AutoClose;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
-import static io.github.jonloucks.concurrency.api.Idempotent.withClose;
-import static io.github.jonloucks.concurrency.api.Idempotent.withOpen;
-import static io.github.jonloucks.concurrency.impl.Internal.completionCheck;
+import static io.github.jonloucks.concurrency.impl.Internal.*;
+import static io.github.jonloucks.contracts.api.Checks.illegalCheck;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
 import static java.util.Optional.ofNullable;
 
-final class CompletableImpl<T> implements Completable<T>, OnCompletion<T> {
+/**
+ * The completion is the only completion state, it is published once by compare and set.
+ * Listener storage is not allocated until the first subscription, and the state and value
+ * views are created on demand.
+ */
+final class CompletableImpl<T> implements Completable<T>, OnCompletion<T>, Cancellation {
     
     @Override
     public boolean isCompleted() {
-        return completionStateMachine.getState().isCompleted();
+        return completion != null;
     }
     
     @Override
     public WaitableNotify<State> notifyState() {
-        return completionStateMachine;
+        return (predicate, listener) -> subscribe(new StateSubscriber<>(predicate, listener));
     }
     
     @Override
     public WaitableNotify<T> notifyValue() {
-        return waitableValue;
+        return (predicate, listener) -> subscribe(new ValueSubscriber<>(predicate, listener));
     }
     
     @Override
@@ -35,50 +51,583 @@ final class CompletableImpl<T> implements Completable<T>, OnCompletion<T> {
         return ofNullable(completion);
     }
     
+    @Override
+    public CompletionStage<T> toCompletionStage() {
+        final CompletableStageImpl<T> known = stage;
+        if (known != null) {
+            return known;
+        }
+        final CompletableStageImpl<T> created = new CompletableStageImpl<>(this);
+        if (!STAGE.compareAndSet(this, null, created)) {
+            return stage;
+        }
+        final Completion<T> completed = completion;
+        if (completed != null) {
+            created.publish(completed);
+        }
+        return created;
+    }
+    
+    @Override
+    public Cancellation getCancellation() {
+        return this;
+    }
+    
+    @Override
+    public boolean isCancelled() {
+        final Completion<T> completed = completion;
+        return completed != null && completed.getState() == State.CANCELLED;
+    }
+    
+    @Override
+    public AutoClose onCancel(Runnable action) {
+        final Runnable validAction = nullCheck(action, "Action must be present.");
+        return whenCompleted(completion -> {
+            if (completion.getState() == State.CANCELLED) {
+                validAction.run();
+            }
+        });
+    }
+    
+    @Override
+    public <R> Completable<R> thenApply(Function<? super T, ? extends R> function) {
+        return thenApply(function, INLINE);
+    }
+    
+    @Override
+    public <R> Completable<R> thenApply(Function<? super T, ? extends R> function, Executor executor) {
+        final Function<? super T, ? extends R> validFunction = nullCheck(function, "Function must be present.");
+        return continueWith(executor, (completion, dependent) -> {
+            if (completion.getState() == State.SUCCEEDED) {
+                final R value = validFunction.apply(completion.getValue().orElse(null));
+                dependent.tryCompletion(ImmutableCompletionImpl.succeeded(value));
+            } else {
+                dependent.tryCompletion(passOn(completion));
+            }
+        });
+    }
+    
+    @Override
+    public <R> Completable<R> thenCompose(Function<? super T, ? extends Completable<R>> function) {
+        return thenCompose(function, INLINE);
+    }
+    
+    @Override
+    public <R> Completable<R> thenCompose(Function<? super T, ? extends Completable<R>> function, Executor executor) {
+        final Function<? super T, ? extends Completable<R>> validFunction = nullCheck(function, "Function must be present.");
+        return continueWith(executor, (completion, dependent) -> {
+            if (completion.getState() == State.SUCCEEDED) {
+                final Completable<R> next = nullCheck(validFunction.apply(completion.getValue().orElse(null)), "Completable must be present.");
+                final AutoClose closeNext = next.notify(dependent::tryCompletion);
+                next.getCompletion().ifPresent(dependent::tryCompletion);
+                dependent.whenCompleted(done -> {
+                    closeNext.close();
+                    if (done.getState() == State.CANCELLED) {
+                        runWithIgnore(() -> next.onCompletion(ImmutableCompletionImpl.of(State.CANCELLED)));
+                    }
+                });
+            } else {
+                dependent.tryCompletion(passOn(completion));
+            }
+        });
+    }
+    
+    @Override
+    public Completable<T> whenComplete(OnCompletion<T> action) {
+        return whenComplete(action, INLINE);
+    }
+    
+    @Override
+    public Completable<T> whenComplete(OnCompletion<T> action, Executor executor) {
+        final OnCompletion<T> validAction = onCompletionCheck(action);
+        return continueWith(executor, (completion, dependent) -> {
+            try {
+                validAction.onCompletion(completion);
+            } catch (Throwable thrown) {
+                if (completion.getState() == State.SUCCEEDED) {
+                    throw thrown;
+                }
+            }
+            dependent.tryCompletion(completion);
+        });
+    }
+    
     @Override
     public void onCompletion(Completion<T> completion) {
-        if (idempotentStateMachine.getState().isRejecting()) {
+        if (lifeCycle != OPENED) {
             throw new IllegalStateException("Completable must be open.");
         }
-        final Completion<T> validCompletion = completionCheck(completion);
-        if (completionStateMachine.setState("onCompletion", validCompletion.getState())) {
-            this.completion = validCompletion;
-            this.waitableValue.accept(validCompletion.getValue().orElse(null));
-            subscriptions.forEach(s -> s.onCompletion(validCompletion));
+        tryCompletion(completionCheck(completion));
+    }
+    
+    /**
+     * @param completion the completion
+     * @return true if this call completed the open Completable
+     */
+    boolean tryCompletion(Completion<T> completion) {
+        if (lifeCycle != OPENED || completion.getState() == State.PENDING || !COMPLETION.compareAndSet(this, null, completion)) {
+            return false;
+        }
+        if (lifetime != null) {
+            lifetime.stop();
         }
+        final CompletableStageImpl<T> published = stage;
+        if (published != null) {
+            published.publish(completion);
+        }
+        final List<Subscriber<T>> delivering;
+        synchronized (this) {
+            delivering = subscribers;
+            subscribers = null;
+            isDelivered = true;
+        }
+        if (delivering != null) {
+            delivering.forEach(subscriber -> subscriber.completed(completion));
+        }
+        return true;
     }
 
     @Override
     public AutoClose notify(OnCompletion<T> onCompletion) {
-        return new NotifyCompletionSubscription<>(onCompletion, subscriptions).open();
+        final CompletionSubscriber<T> subscriber = new CompletionSubscriber<>(onCompletionCheck(onCompletion));
+        synchronized (this) {
+            if (!isDelivered) {
+                add(subscriber);
+            }
+        }
+        return () -> remove(subscriber);
     }
     
     @Override
     public AutoClose open() {
-        return withOpen(idempotentStateMachine, this::realOpen);
+        if (!LIFE_CYCLE.compareAndSet(this, OPENABLE, OPENED)) {
+            return AutoClose.NONE;
+        }
+        if (lifetime != null) {
+            lifetime.start(this);
+        }
+        return this::close;
     }
   
     void close() {
-        withClose(idempotentStateMachine, this::realClose);
+        if (LIFE_CYCLE.compareAndSet(this, OPENABLE, CLOSED) || LIFE_CYCLE.compareAndSet(this, OPENED, CLOSED)) {
+            if (lifetime != null) {
+                lifetime.stop();
+            }
+            synchronized (this) {
+                if (subscribers != null) {
+                    subscribers.removeIf(subscriber -> subscriber instanceof CompletionSubscriber);
+                }
+            }
+        }
     }
     
-    CompletableImpl(Concurrency.Config concurrencyConfig, Completable.Config<T> ignored) {
-        this.completionStateMachine = State.createStateMachine(concurrencyConfig.contracts());
-        this.idempotentStateMachine = Idempotent.createStateMachine(concurrencyConfig.contracts());
-        this.waitableValue = GlobalConcurrency.createWaitable(null);
+    CompletableImpl(Concurrency.Config concurrencyConfig, Scheduler scheduler, InFlight inFlight, Completable.Config<T> config) {
+        this.concurrencyConfig = concurrencyConfig;
+        this.scheduler = scheduler;
+        this.inFlight = inFlight;
+        final Duration timeout = config.getTimeout().orElse(null);
+        this.lifetime = timeout == null && inFlight == null
+            ? null
+            : new Lifetime(scheduler, inFlight, timeout, timeoutStateCheck(config.getTimeoutState()));
     }
     
-    private AutoClose realOpen() {
-        return this::close;
+    private <R> Completable<R> continueWith(Executor executor, BiConsumer<Completion<T>, CompletableImpl<R>> step) {
+        final Executor validExecutor = nullCheck(executor, "Executor must be present.");
+        final CompletableImpl<R> dependent = new CompletableImpl<>(concurrencyConfig, scheduler, inFlight, new Completable.Config<R>() {});
+        dependent.open();
+        final Continuation<T, R> continuation = new Continuation<>(validExecutor, step, dependent);
+        final Completion<T> completed;
+        synchronized (this) {
+            completed = isDelivered ? completion : null;
+            if (completed == null) {
+                add(continuation);
+            }
+        }
+        if (completed != null) {
+            continuation.completed(completed);
+        }
+        return dependent;
+    }
+    
+    /**
+     * Unlike notify, the action runs immediately when already completed and is kept when this is closed
+     *
+     * @param action receives the completion
+     * @return closing removes the action if it has not run
+     */
+    private AutoClose whenCompleted(OnCompletion<T> action) {
+        final CompletedSubscriber<T> subscriber = new CompletedSubscriber<>(action);
+        final Completion<T> completed;
+        synchronized (this) {
+            completed = isDelivered ? completion : null;
+            if (completed == null) {
+                add(subscriber);
+            }
+        }
+        if (completed != null) {
+            subscriber.completed(completed);
+            return AutoClose.NONE;
+        }
+        return () -> remove(subscriber);
+    }
+    
+    /**
+     * The current value is captured under the lock and delivered after it is released
+     */
+    private AutoClose subscribe(OrderedSubscriber<T> subscriber) {
+        final Completion<T> completed;
+        synchronized (this) {
+            completed = isDelivered ? completion : null;
+            if (completed == null) {
+                add(subscriber);
+            }
+        }
+        subscriber.current(completed);
+        return completed == null ? () -> remove(subscriber) : AutoClose.NONE;
+    }
+    
+    private void add(Subscriber<T> subscriber) {
+        if (subscribers == null) {
+            subscribers = new ArrayList<>(2);
+        }
+        subscribers.add(subscriber);
     }
     
-    private void realClose() {
-        subscriptions.forEach(NotifyCompletionSubscription::close);
+    private synchronized void remove(Subscriber<T> subscriber) {
+        if (subscribers != null) {
+            removeExact(subscribers, subscriber);
+        }
+    }
+    
+    private interface Subscriber<T> {
+        
+        /**
+         * @param completion the current completion, null while pending
+         */
+        void current(Completion<T> completion);
+        
+        void completed(Completion<T> completion);
+    }
+    
+    /**
+     * A completion that arrives before the current value is delivered is handed to the subscribing thread,
+     * so a subscriber never receives the completed value before the pending one.
+     */
+    private abstract static class OrderedSubscriber<T> implements Subscriber<T> {
+        
+        @Override
+        public final void current(Completion<T> completion) {
+            try {
+                deliverCurrent(completion);
+            } finally {
+                final Completion<T> early = markCurrent();
+                if (early != null) {
+                    deliverCompleted(early);
+                }
+            }
+        }
+        
+        @Override
+        public final void completed(Completion<T> completion) {
+            synchronized (this) {
+                if (!isCurrent) {
+                    earlyCompletion = completion;
+                    return;
+                }
+            }
+            deliverCompleted(completion);
+        }
+        
+        abstract void deliverCurrent(Completion<T> completion);
+        
+        abstract void deliverCompleted(Completion<T> completion);
+        
+        private synchronized Completion<T> markCurrent() {
+            final Completion<T> early = earlyCompletion;
+            isCurrent = true;
+            earlyCompletion = null;
+            return early;
+        }
+        
+        private boolean isCurrent;
+        private Completion<T> earlyCompletion;
+    }
+    
+    private static final class StateSubscriber<T> extends OrderedSubscriber<T> {
+        
+        @Override
+        void deliverCurrent(Completion<T> completion) {
+            accept(completion == null ? State.PENDING : completion.getState());
+        }
+        
+        @Override
+        void deliverCompleted(Completion<T> completion) {
+            accept(completion.getState());
+        }
+        
+        private StateSubscriber(Predicate<State> predicate, Consumer<State> listener) {
+            this.predicate = predicateCheck(predicate);
+            this.listener = listenerCheck(listener);
+        }
+        
+        private void accept(State state) {
+            if (predicate.test(state)) {
+                listener.accept(state);
+            }
+        }
+        
+        private final Predicate<State> predicate;
+        private final Consumer<State> listener;
+    }
+    
+    private static final class ValueSubscriber<T> extends OrderedSubscriber<T> {
+        
+        @Override
+        void deliverCurrent(Completion<T> completion) {
+            accept(completion == null ? null : completion.getValue().orElse(null));
+        }
+        
+        @Override
+        void deliverCompleted(Completion<T> completion) {
+            final T value = completion.getValue().orElse(null);
+            if (value != null) { // the value only changes when one is present
+                accept(value);
+            }
+        }
+        
+        private ValueSubscriber(Predicate<T> predicate, Consumer<T> listener) {
+            this.predicate = predicateCheck(predicate);
+            this.listener = listenerCheck(listener);
+        }
+        
+        private void accept(T value) {
+            if (predicate.test(value)) {
+                listener.accept(value);
+            }
+        }
+        
+        private final Predicate<T> predicate;
+        private final Consumer<T> listener;
+    }
+    
+    /**
+     * Runs one step of a pipeline, any exception or executor rejection fails the dependent
+     */
+    private static final class Continuation<T, R> implements Subscriber<T> {
+        
+        @Override
+        public void current(Completion<T> completion) {
+        }
+        
+        @Override
+        public void completed(Completion<T> completion) {
+            try {
+                executor.execute(() -> run(completion));
+            } catch (Throwable thrown) {
+                dependent.tryCompletion(failed(thrown));
+            }
+        }
+        
+        private Continuation(Executor executor, BiConsumer<Completion<T>, CompletableImpl<R>> step, CompletableImpl<R> dependent) {
+            this.executor = executor;
+            this.step = step;
+            this.dependent = dependent;
+        }
+        
+        private void run(Completion<T> completion) {
+            if (dependent.isCompleted()) {
+                return; // cancelled while waiting to run
+            }
+            try {
+                step.accept(completion, dependent);
+            } catch (Throwable thrown) {
+                dependent.tryCompletion(failed(thrown));
+            }
+        }
+        
+        private final Executor executor;
+        private final BiConsumer<Completion<T>, CompletableImpl<R>> step;
+        private final CompletableImpl<R> dependent;
+    }
+    
+    private static final class CompletedSubscriber<T> implements Subscriber<T> {
+        
+        @Override
+        public void current(Completion<T> completion) {
+        }
+        
+        @Override
+        public void completed(Completion<T> completion) {
+            action.onCompletion(completion);
+        }
+        
+        private CompletedSubscriber(OnCompletion<T> action) {
+            this.action = action;
+        }
+        
+        private final OnCompletion<T> action;
+    }
+    
+    /**
+     * Inline steps started while another inline step runs on the same thread are queued and run after it,
+     * so a long pipeline completes in a loop instead of one nested call per step
+     */
+    private static final class Trampoline {
+        
+        private static void execute(Runnable task) {
+            final Trampoline trampoline = CURRENT.get();
+            trampoline.pending.add(task);
+            if (trampoline.isRunning) {
+                return;
+            }
+            trampoline.isRunning = true;
+            try {
+                for (Runnable next = trampoline.pending.poll(); next != null; next = trampoline.pending.poll()) {
+                    next.run();
+                }
+            } finally {
+                trampoline.isRunning = false;
+            }
+        }
+        
+        private static final ThreadLocal<Trampoline> CURRENT = ThreadLocal.withInitial(Trampoline::new);
+        
+        private final ArrayDeque<Runnable> pending = new ArrayDeque<>();
+        private boolean isRunning;
+    }
+    
+    /**
+     * The part of a Completable's life its owner follows, from opening until completion or close:
+     * the deadline timer, so the shared scheduler only holds timers for Completables still in flight,
+     * and the in-flight count drained when the Concurrency is closed.
+     */
+    private static final class Lifetime {
+        
+        private Lifetime(Scheduler scheduler, InFlight inFlight, Duration timeout, State state) {
+            this.scheduler = timeout == null ? scheduler : nullCheck(scheduler, "Scheduler must be present.");
+            this.inFlight = inFlight;
+            this.timeout = timeout;
+            this.state = state;
+        }
+        
+        private void start(CompletableImpl<?> completable) {
+            if (inFlight != null) {
+                inFlight.enter();
+            }
+            if (timeout != null) {
+                try {
+                    timer = scheduler.schedule(timeout, () -> scheduler.handOff(() -> expire(completable)));
+                } catch (IllegalStateException thrown) {
+                    expire(completable); // the Concurrency is closed, the deadline can never be met
+                }
+            }
+            if (!PHASE.compareAndSet(this, NEW, STARTED)) {
+                end(); // completed before it was started
+            }
+        }
+        
+        private void stop() {
+            if ((int) PHASE.getAndSet(this, STOPPED) == STARTED) {
+                end();
+            }
+        }
+        
+        private void end() {
+            timer.close();
+            if (inFlight != null) {
+                inFlight.exit();
+            }
+        }
+        
+        /**
+         * Completes on the executor of the Concurrency, which delivers to subscribers like any other completing thread
+         */
+        private <T> void expire(CompletableImpl<T> completable) {
+            final Completion<T> expired = ImmutableCompletionImpl.of(state, null,
+                new TimeoutException("Completable timed out after " + timeout + "."), null);
+            completable.tryCompletion(expired);
+        }
+        
+        private static final int NEW = 0;
+        private static final int STARTED = 1;
+        private static final int STOPPED = 2;
+        private static final VarHandle PHASE;
+        
+        static {
+            try {
+                PHASE = MethodHandles.lookup().findVarHandle(Lifetime.class, "phase", int.class);
+            } catch (ReflectiveOperationException thrown) {
+                throw new ExceptionInInitializerError(thrown);
+            }
+        }
+        
+        private final Scheduler scheduler;
+        private final InFlight inFlight;
+        private final Duration timeout;
+        private final State state;
+        private volatile AutoClose timer = AutoClose.NONE;
+        private volatile int phase = NEW;
+    }
+    
+    private static State timeoutStateCheck(State state) {
+        final State validState = nullCheck(state, "Timeout state must be present.");
+        return illegalCheck(validState, validState != State.FAILED && validState != State.CANCELLED,
+            "Timeout state must be FAILED or CANCELLED.");
+    }
+    
+    private static <R> Completion<R> passOn(Completion<?> completion) {
+        return ImmutableCompletionImpl.of(completion.getState(), null, completion.getThrown().orElse(null), null);
+    }
+    
+    private static <R> Completion<R> failed(Throwable thrown) {
+        return ImmutableCompletionImpl.failed(thrown);
+    }
+    
+    private static final class CompletionSubscriber<T> implements Subscriber<T> {
+        
+        @Override
+        public void current(Completion<T> completion) {
+        }
+        
+        @Override
+        public void completed(Completion<T> completion) {
+            onCompletion.onCompletion(completion);
+        }
+        
+        private CompletionSubscriber(OnCompletion<T> onCompletion) {
+            this.onCompletion = onCompletion;
+        }
+        
+        private final OnCompletion<T> onCompletion;
+    }
+    
+    private static final Executor INLINE = Trampoline::execute;
+    private static final int OPENABLE = 0;
+    private static final int OPENED = 1;
+    private static final int CLOSED = 2;
+    private static final VarHandle COMPLETION;
+    private static final VarHandle LIFE_CYCLE;
+    private static final VarHandle STAGE;
+    
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            COMPLETION = lookup.findVarHandle(CompletableImpl.class, "completion", Completion.class);
+            LIFE_CYCLE = lookup.findVarHandle(CompletableImpl.class, "lifeCycle", int.class);
+            STAGE = lookup.findVarHandle(CompletableImpl.class, "stage", CompletableStageImpl.class);
+        } catch (ReflectiveOperationException thrown) {
+            throw new ExceptionInInitializerError(thrown);
+        }
     }
     
-    private final StateMachine<State> completionStateMachine;
-    private final StateMachine<Idempotent> idempotentStateMachine;
-    private Completion<T> completion;
-    private final Waitable<T> waitableValue;
-    private final List<NotifyCompletionSubscription<T>> subscriptions = new CopyOnWriteArrayList<>();
+    private final Concurrency.Config concurrencyConfig;
+    private final Scheduler scheduler;
+    private final InFlight inFlight;
+    private final Lifetime lifetime;
+    private volatile Completion<T> completion;
+    private volatile int lifeCycle = OPENABLE;
+    private volatile CompletableStageImpl<T> stage;
+    private List<Subscriber<T>> subscribers;
+    private boolean isDelivered;
 }
@@ -0,0 +1,139 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Completable;
+import io.github.jonloucks.concurrency.api.Completion;
+import io.github.jonloucks.concurrency.api.Concurrency;
+import io.github.jonloucks.concurrency.api.ConcurrencyException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * The CompletionStage view of a Completable.
+ * The Completable owns the completion, writes to this future are redirected to it
+ * and the future is completed when the Completable publishes the completion.
+ * A completion can not be obtruded, since the Completable would not follow it.
+ *
+ * @param <T> the type of completion value
+ */
+final class CompletableStageImpl<T> extends CompletableFuture<T> {
+    
+    @Override
+    public boolean complete(T value) {
+        return completable.tryCompletion(ImmutableCompletionImpl.succeeded(value));
+    }
+    
+    @Override
+    public boolean completeExceptionally(Throwable thrown) {
+        final Throwable validThrown = nullCheck(thrown, "Thrown must be present.");
+        return completable.tryCompletion(toCompletion(null, validThrown, null));
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        completable.tryCompletion(ImmutableCompletionImpl.of(Completion.State.CANCELLED, null, new CancellationException(), null));
+        return isCancelled();
+    }
+    
+    @Override
+    public CompletableFuture<T> completeAsync(Supplier<? extends T> supplier) {
+        return completeAsync(supplier, defaultExecutor());
+    }
+    
+    @Override
+    public CompletableFuture<T> completeAsync(Supplier<? extends T> supplier, Executor executor) {
+        final Supplier<? extends T> validSupplier = nullCheck(supplier, "Supplier must be present.");
+        nullCheck(executor, "Executor must be present.").execute(() -> {
+            try {
+                complete(validSupplier.get());
+            } catch (Throwable thrown) {
+                completeExceptionally(thrown);
+            }
+        });
+        return this;
+    }
+    
+    @Override
+    public void obtrudeValue(T value) {
+        throw getObtrudeNotSupportedException();
+    }
+    
+    @Override
+    public void obtrudeException(Throwable thrown) {
+        throw getObtrudeNotSupportedException();
+    }
+    
+    CompletableStageImpl(CompletableImpl<T> completable) {
+        this.completable = completable;
+    }
+    
+    /**
+     * Complete this future from the completion published by the Completable
+     *
+     * @param completion the final completion
+     */
+    void publish(Completion<T> completion) {
+        switch (completion.getState()) {
+            case SUCCEEDED:
+                super.complete(completion.getValue().orElse(null));
+                break;
+            case CANCELLED:
+                super.cancel(false);
+                break;
+            default:
+                super.completeExceptionally(completion.getThrown().orElseGet(() -> new ConcurrencyException("Completion failed.")));
+                break;
+        }
+    }
+    
+    /**
+     * Adapt a CompletionStage to an opened Completable
+     *
+     * @param concurrencyConfig the Concurrency configuration
+     * @param scheduler the Concurrency scheduler
+     * @param inFlight the Completables in flight of the Concurrency
+     * @param stage the CompletionStage
+     * @return the Completable
+     * @param <T> the type of completion value
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Completable<T> adapt(Concurrency.Config concurrencyConfig, Scheduler scheduler, InFlight inFlight, CompletionStage<T> stage) {
+        final CompletionStage<T> validStage = nullCheck(stage, "Stage must be present.");
+        if (validStage instanceof CompletableStageImpl) {
+            return ((CompletableStageImpl<T>) validStage).completable;
+        }
+        final Future<T> future = validStage instanceof Future ? (Future<T>) validStage : null;
+        final CompletableImpl<T> completable = new CompletableImpl<>(concurrencyConfig, scheduler, inFlight, new Completable.Config<T>() {});
+        completable.open();
+        completable.notify(completion -> {
+            if (completion.getState() == Completion.State.CANCELLED) {
+                runWithIgnore(() -> validStage.toCompletableFuture().cancel(false));
+            }
+        });
+        validStage.whenComplete((value, thrown) -> completable.tryCompletion(toCompletion(value, thrown, future)));
+        return completable;
+    }
+    
+    private static <T> Completion<T> toCompletion(T value, Throwable thrown, Future<T> future) {
+        if (thrown == null) {
+            return ImmutableCompletionImpl.of(Completion.State.SUCCEEDED, value, null, future);
+        }
+        final Throwable cause = thrown instanceof CompletionException && thrown.getCause() != null ? thrown.getCause() : thrown;
+        final Completion.State state = cause instanceof CancellationException ? Completion.State.CANCELLED : Completion.State.FAILED;
+        return ImmutableCompletionImpl.of(state, value, cause, future);
+    }
+    
+    private static UnsupportedOperationException getObtrudeNotSupportedException() {
+        return new UnsupportedOperationException("Completion of a Completable must not be replaced.");
+    }
+    
+    private final CompletableImpl<T> completable;
+}
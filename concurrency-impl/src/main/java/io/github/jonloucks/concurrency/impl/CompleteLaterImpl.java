@@ -1,11 +1,14 @@
 package io.github.jonloucks.concurrency.impl;
 
+import io.github.jonloucks.concurrency.api.Cancellation;
 import io.github.jonloucks.concurrency.api.Completion;
 import io.github.jonloucks.concurrency.api.OnCompletion;
 
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import static io.github.jonloucks.concurrency.impl.Internal.onCompletionCheck;
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
 
 final class CompleteLaterImpl<T> {
@@ -15,6 +18,9 @@ final class CompleteLaterImpl<T> {
     }
     
     void run() {
+        if (Cancellation.of(onCompletion).isCancelled()) {
+            return; // the completion is already final
+        }
         final Completion.Config.Builder<T> builder = new CompletionBuilderImpl<>();
         boolean delegated = false;
         try {
@@ -30,6 +36,21 @@ final class CompleteLaterImpl<T> {
         }
     }
     
+    /**
+     * Run on an executor, a rejection is a final failed completion
+     *
+     * @param executor the executor
+     */
+    void submit(Executor executor) {
+        final Executor validExecutor = nullCheck(executor, "Executor must be present.");
+        delegateCheck(delegate);
+        try {
+            validExecutor.execute(() -> runWithIgnore(this::run));
+        } catch (Throwable thrown) {
+            onCompletion.onCompletion(ImmutableCompletionImpl.failed(thrown));
+        }
+    }
+    
     private static <T> Consumer<OnCompletion<T>> delegateCheck(Consumer<OnCompletion<T>> delegate) {
         return nullCheck(delegate, "Delegate must be present.");
     }
@@ -1,11 +1,13 @@
 package io.github.jonloucks.concurrency.impl;
 
-import io.github.jonloucks.concurrency.api.Completion;
+import io.github.jonloucks.concurrency.api.Cancellation;
 import io.github.jonloucks.concurrency.api.OnCompletion;
 
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import static io.github.jonloucks.concurrency.impl.Internal.onCompletionCheck;
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
 
 final class CompleteNowImpl<T> {
@@ -16,16 +18,44 @@ final class CompleteNowImpl<T> {
     }
     
     T run() {
-        final Completion.Config.Builder<T> builder = new CompletionBuilderImpl<>();
+        return completeNow(onCompletion, successBlock);
+    }
+    
+    /**
+     * Nothing is allocated when the block succeeds without a value,
+     * otherwise only the successful completion holding the value
+     *
+     * @param onCompletion the OnCompletion callback
+     * @param successBlock executed to determine the final completion value
+     * @return the final completion value
+     * @param <T> the completion value type
+     */
+    static <T> T completeNow(OnCompletion<T> onCompletion, Supplier<T> successBlock) {
+        final OnCompletion<T> validOnCompletion = onCompletionCheck(onCompletion);
+        Cancellation.of(validOnCompletion).throwIfCancelled();
+        final T value;
         try {
-            final T value = successBlockCheck(successBlock).get(); // note: illegal check inside try
-            builder.value(value).state(Completion.State.SUCCEEDED);
-            return value;
+            value = successBlockCheck(successBlock).get(); // note: illegal check inside try
         } catch (Throwable thrown) {
-            builder.state(Completion.State.FAILED).thrown(thrown);
+            validOnCompletion.onCompletion(ImmutableCompletionImpl.failed(thrown));
             throw thrown;
-        } finally {
-            onCompletion.onCompletion(builder);
+        }
+        validOnCompletion.onCompletion(ImmutableCompletionImpl.succeeded(value));
+        return value;
+    }
+    
+    /**
+     * Run on an executor, a rejection is a final failed completion
+     *
+     * @param executor the executor
+     */
+    void submit(Executor executor) {
+        final Executor validExecutor = nullCheck(executor, "Executor must be present.");
+        successBlockCheck(successBlock);
+        try {
+            validExecutor.execute(() -> runWithIgnore(this::run));
+        } catch (Throwable thrown) {
+            onCompletion.onCompletion(ImmutableCompletionImpl.failed(thrown));
         }
     }
     
@@ -19,7 +19,7 @@ final class CompletionFactoryImpl implements CompletionFactory {
     
     @Override
     public <T> Completion<T> createCompletion(Completion.Config<T> config) {
-        return new ImmutableCompletionImpl<>(config);
+        return ImmutableCompletionImpl.of(config);
     }
     
     CompletionFactoryImpl() {
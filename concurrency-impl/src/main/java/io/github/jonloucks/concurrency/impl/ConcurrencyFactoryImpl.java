@@ -27,9 +27,13 @@ public final class ConcurrencyFactoryImpl implements ConcurrencyFactory {
         final Concurrency.Config validConfig = configCheck(config);
         final Repository repository = validConfig.contracts().claim(Repository.FACTORY).get();
         
-        installCore(validConfig, repository);
+        final PolicyExecutor executor = new PolicyExecutor(validConfig);
+        final Scheduler scheduler = new Scheduler(executor);
+        final InFlight inFlight = new InFlight();
+        final WaitableRegistry waitables = new WaitableRegistry();
+        installCore(validConfig, repository, scheduler, inFlight, waitables);
         
-        final ConcurrencyImpl concurrency = new ConcurrencyImpl(validConfig, repository, true);
+        final ConcurrencyImpl concurrency = new ConcurrencyImpl(validConfig, repository, executor, scheduler, inFlight, waitables, true);
         repository.keep(Concurrency.CONTRACT, () -> concurrency, IF_NOT_BOUND);
         return concurrency;
     }
@@ -49,20 +53,26 @@ public final class ConcurrencyFactoryImpl implements ConcurrencyFactory {
         final Concurrency.Config validConfig = configCheck(config);
         final Repository validRepository = nullCheck(repository, "Repository must be present.");
         
-        installCore(validConfig, validRepository);
+        final PolicyExecutor executor = new PolicyExecutor(validConfig);
+        final Scheduler scheduler = new Scheduler(executor);
+        final InFlight inFlight = new InFlight();
+        final WaitableRegistry waitables = new WaitableRegistry();
+        installCore(validConfig, validRepository, scheduler, inFlight, waitables);
         
-        final Promisor<Concurrency> concurrencyPromisor = lifeCycle(() -> new ConcurrencyImpl(validConfig, validRepository, false));
+        final Promisor<Concurrency> concurrencyPromisor = lifeCycle(() -> new ConcurrencyImpl(validConfig, validRepository, executor, scheduler, inFlight, waitables, false));
         
         validRepository.keep(Concurrency.CONTRACT, concurrencyPromisor, IF_NOT_BOUND);
     }
     
-    private void installCore(Concurrency.Config config, Repository repository) {
+    private void installCore(Concurrency.Config config, Repository repository, Scheduler scheduler, InFlight inFlight, WaitableRegistry waitables) {
         repository.require(Repository.FACTORY);
         
         repository.keep(WaitableFactory.CONTRACT, lifeCycle(WaitableFactoryImpl::new), IF_NOT_BOUND);
-        repository.keep(StateMachineFactory.CONTRACT, StateMachineFactoryImpl::new, IF_NOT_BOUND);
+        repository.keep(StateMachineFactory.CONTRACT, () -> new StateMachineFactoryImpl(config, scheduler, inFlight, waitables), IF_NOT_BOUND);
+        repository.keep(StateMachineSnapshot.CONTRACT, lifeCycle(StateMachineSnapshotImpl::new), IF_NOT_BOUND);
+        repository.keep(StateMachineJournalFactory.CONTRACT, () -> new StateMachineJournalFactoryImpl(scheduler), IF_NOT_BOUND);
         repository.keep(CompletionFactory.CONTRACT, CompletionFactoryImpl::new, IF_NOT_BOUND);
-        repository.keep(CompletableFactory.CONTRACT, () -> new CompletableFactoryImpl(config), IF_NOT_BOUND);
+        repository.keep(CompletableFactory.CONTRACT, () -> new CompletableFactoryImpl(config, scheduler, inFlight), IF_NOT_BOUND);
         repository.keep(Concurrency.Config.Builder.FACTORY, () -> ConfigBuilderImpl::new, IF_NOT_BOUND);
         repository.keep(ConcurrencyFactory.CONTRACT, lifeCycle(ConcurrencyFactoryImpl::new), IF_NOT_BOUND);
     }
@@ -2,27 +2,33 @@ package io.github.jonloucks.concurrency.impl;
 
 import io.github.jonloucks.concurrency.api.*;
 import io.github.jonloucks.contracts.api.AutoClose;
+import io.github.jonloucks.contracts.api.AutoOpen;
 import io.github.jonloucks.contracts.api.Contracts;
 import io.github.jonloucks.contracts.api.Repository;
 
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
-import static io.github.jonloucks.concurrency.api.Idempotent.withClose;
-import static io.github.jonloucks.concurrency.api.Idempotent.withOpen;
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
 import static io.github.jonloucks.contracts.api.Checks.configCheck;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+import static java.util.Optional.ofNullable;
 
 final class ConcurrencyImpl implements Concurrency {
     
     @Override
     public AutoClose open() {
-        return withOpen(stateMachine, this::realOpen);
+        return lifeCycle.open(opener);
     }
     
     @Override
     public <T> Waitable<T> createWaitable(T initialValue) {
-        return waitableFactory.create(initialValue);
+        final Waitable<T> waitable = waitableFactory.create(initialValue);
+        waitables.register(waitable);
+        return waitable;
     }
     
     @Override
@@ -50,6 +56,21 @@ final class ConcurrencyImpl implements Concurrency {
         return completableFactory.createCompletable(builderConsumer);
     }
     
+    @Override
+    public <T> Completable<T> fromFuture(CompletionStage<T> stage) {
+        return CompletableStageImpl.adapt(config, scheduler, inFlight, stage);
+    }
+    
+    @Override
+    public Completable<Void> allOf(List<? extends Completable<?>> completables) {
+        return CombinedCompletable.allOf(config, scheduler, inFlight, completables);
+    }
+    
+    @Override
+    public <T> Completable<T> anyOf(List<? extends Completable<? extends T>> completables) {
+        return CombinedCompletable.anyOf(config, scheduler, inFlight, completables);
+    }
+    
     @Override
     public <T> Completion<T> createCompletion(Completion.Config<T> config) {
         return completionFactory.createCompletion(config);
@@ -67,19 +88,44 @@ final class ConcurrencyImpl implements Concurrency {
     
     @Override
     public <T> T completeNow(OnCompletion<T> onCompletion, Supplier<T> successBlock) {
-       return new CompleteNowImpl<>(onCompletion,successBlock).run();
+        return CompleteNowImpl.completeNow(onCompletion, successBlock);
+    }
+    
+    @Override
+    public <T> void completeLater(OnCompletion<T> onCompletion, Consumer<OnCompletion<T>> delegate, Executor executor) {
+        new CompleteLaterImpl<>(onCompletion, delegate).submit(executor);
+    }
+    
+    @Override
+    public <T> void completeNow(OnCompletion<T> onCompletion, Supplier<T> successBlock, Executor executor) {
+        new CompleteNowImpl<>(onCompletion, successBlock).submit(executor);
+    }
+    
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+    
+    @Override
+    public Optional<ShutdownReport> getShutdownReport() {
+        return ofNullable(shutdownReport);
     }
     
-    ConcurrencyImpl(Config config, Repository repository, boolean autoOpen) {
+    ConcurrencyImpl(Config config, Repository repository, PolicyExecutor executor, Scheduler scheduler, InFlight inFlight,
+                    WaitableRegistry waitables, boolean autoOpen) {
         final Config validConfig = configCheck(config);
+        this.config = validConfig;
         final Repository validRepository = nullCheck(repository, "Repository must be present.");
         this.closeRepository = autoOpen ? validRepository.open() : AutoClose.NONE;
+        this.scheduler = scheduler;
+        this.inFlight = inFlight;
+        this.waitables = waitables;
+        this.executor = executor;
         final Contracts contracts = validConfig.contracts();
         this.waitableFactory = contracts.claim(WaitableFactory.CONTRACT);
         this.completionFactory = contracts.claim(CompletionFactory.CONTRACT);
         this.completableFactory = contracts.claim(CompletableFactory.CONTRACT);
         this.stateMachineFactory = contracts.claim(StateMachineFactory.CONTRACT);
-        this.stateMachine = createStateMachine(Idempotent.class, Idempotent.OPENABLE);
     }
     
     private AutoClose realOpen() {
@@ -87,17 +133,54 @@ final class ConcurrencyImpl implements Concurrency {
     }
 
     private void close() {
-        withClose(stateMachine, this::realClose);
+        lifeCycle.close(this::realClose);
     }
     
+    /**
+     * Every phase shares one deadline, an interrupt skips the remaining waits but not the remaining phases
+     */
     private void realClose() {
+        final ShutdownReportImpl report = new ShutdownReportImpl();
+        final long startNanos = System.nanoTime();
+        final long deadlineNanos = startNanos + config.shutdownTimeout().toNanos();
+        
+        executor.shutdown();
+        long phaseNanos = report.record(ShutdownReport.Phase.STOP, startNanos);
+        
+        try {
+            if (!inFlight.awaitEmpty(deadlineNanos) || !executor.awaitTermination(deadlineNanos)) {
+                report.notDrained();
+            }
+            phaseNanos = report.record(ShutdownReport.Phase.DRAIN, phaseNanos);
+            if (!scheduler.shutdown(deadlineNanos)) {
+                report.notDrained();
+            }
+        } catch (InterruptedException thrown) {
+            Thread.currentThread().interrupt();
+            report.notDrained();
+            runWithIgnore(() -> scheduler.shutdown(System.nanoTime()));
+        }
+        phaseNanos = report.record(ShutdownReport.Phase.SCHEDULED, phaseNanos);
+        
+        waitables.drain().forEach(Waitable::shutdown);
+        phaseNanos = report.record(ShutdownReport.Phase.WAITABLES, phaseNanos);
+        
         closeRepository.close();
+        report.record(ShutdownReport.Phase.REPOSITORY, phaseNanos);
+        shutdownReport = report;
     }
     
+    private final Config config;
     private final AutoClose closeRepository;
+    private final Scheduler scheduler;
+    private final PolicyExecutor executor;
+    private final InFlight inFlight;
+    private final WaitableRegistry waitables;
+    private volatile ShutdownReport shutdownReport;
     private final WaitableFactory waitableFactory;
     private final StateMachineFactory stateMachineFactory;
     private final CompletionFactory completionFactory;
     private final CompletableFactory completableFactory;
-    private final StateMachine<Idempotent> stateMachine;
+    private final IdempotentLifeCycle lifeCycle = new IdempotentLifeCycle();
+    private final AutoOpen opener = this::realOpen;
 }
@@ -7,6 +7,7 @@ import io.github.jonloucks.concurrency.api.ConcurrencyFactory;
 import java.time.Duration;
 
 import static io.github.jonloucks.contracts.api.Checks.contractsCheck;
+import static io.github.jonloucks.contracts.api.Checks.illegalCheck;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
 
 final class ConfigBuilderImpl implements Concurrency.Config.Builder {
@@ -46,6 +47,24 @@ final class ConfigBuilderImpl implements Concurrency.Config.Builder {
         return this;
     }
     
+    @Override
+    public Builder executionPolicy(ExecutionPolicy executionPolicy) {
+        this.executionPolicy = nullCheck(executionPolicy, "Execution policy must be present.");
+        return this;
+    }
+    
+    @Override
+    public Builder executionThreads(int executionThreads) {
+        this.executionThreads = illegalCheck(executionThreads, executionThreads < 1, "Execution threads must be positive.");
+        return this;
+    }
+    
+    @Override
+    public Builder executionQueueSize(int executionQueueSize) {
+        this.executionQueueSize = illegalCheck(executionQueueSize, executionQueueSize < 1, "Execution queue size must be positive.");
+        return this;
+    }
+    
     @Override
     public boolean useReflection() {
         return useReflection;
@@ -76,6 +95,21 @@ final class ConfigBuilderImpl implements Concurrency.Config.Builder {
         return shutdownTimeout;
     }
  
+    @Override
+    public ExecutionPolicy executionPolicy() {
+        return executionPolicy;
+    }
+    
+    @Override
+    public int executionThreads() {
+        return executionThreads;
+    }
+    
+    @Override
+    public int executionQueueSize() {
+        return executionQueueSize;
+    }
+ 
     ConfigBuilderImpl() {
     
     }
@@ -86,4 +120,7 @@ final class ConfigBuilderImpl implements Concurrency.Config.Builder {
     private Duration shutdownTimeout = DEFAULT.shutdownTimeout();
     private String reflectionClassName = DEFAULT.reflectionClassName();
     private Class<? extends ConcurrencyFactory> serviceLoaderClass = DEFAULT.serviceLoaderClass();
+    private ExecutionPolicy executionPolicy = DEFAULT.executionPolicy();
+    private int executionThreads = DEFAULT.executionThreads();
+    private int executionQueueSize = DEFAULT.executionQueueSize();
 }
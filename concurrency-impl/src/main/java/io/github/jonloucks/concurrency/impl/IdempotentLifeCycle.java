@@ -0,0 +1,126 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.ConcurrencyException;
+import io.github.jonloucks.concurrency.api.Idempotent;
+import io.github.jonloucks.concurrency.api.WaitableNotify;
+import io.github.jonloucks.contracts.api.AutoClose;
+import io.github.jonloucks.contracts.api.AutoOpen;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * The Idempotent life cycle of one owner held in a single int.
+ * Each change is one compare and set that follows the same rules as an Idempotent StateMachine,
+ * listeners are notified after the change by the thread that made it.
+ */
+final class IdempotentLifeCycle implements WaitableNotify<Idempotent> {
+    
+    @Override
+    public AutoClose notifyIf(Predicate<Idempotent> predicate, Consumer<Idempotent> listener) {
+        final NotifyValueSubscription<Idempotent> subscription = new NotifyValueSubscription<>(predicate, listener, getListeners());
+        subscription.process(getState());
+        return subscription.open();
+    }
+    
+    /**
+     * @return the current state
+     */
+    Idempotent getState() {
+        return STATES[state];
+    }
+    
+    /**
+     * Only the caller that moves from OPENABLE to OPENING runs the open, a failed open returns to OPENABLE
+     *
+     * @param open the open
+     * @return the AutoClose from the open, or AutoClose.NONE if this call did not open
+     */
+    AutoClose open(AutoOpen open) {
+        final AutoOpen validOpen = nullCheck(open, "Open must be present.");
+        if (!change(Idempotent.OPENABLE, Idempotent.OPENING)) {
+            return AutoClose.NONE;
+        }
+        final AutoClose close;
+        try {
+            close = validOpen.open();
+        } catch (Throwable thrown) {
+            change(Idempotent.OPENING, Idempotent.OPENABLE);
+            throw ConcurrencyException.rethrow(thrown);
+        }
+        change(Idempotent.OPENING, Idempotent.OPENED);
+        return close;
+    }
+    
+    /**
+     * Only the caller that leaves OPENABLE, OPENING or OPENED runs the close.
+     * An opened owner is CLOSING while the close runs, exceptions thrown by the close are ignored.
+     *
+     * @param close the close
+     */
+    void close(AutoClose close) {
+        final AutoClose validClose = nullCheck(close, "Close must be present.");
+        while (true) {
+            final Idempotent current = getState();
+            final Idempotent goal = current == Idempotent.OPENED ? Idempotent.CLOSING : Idempotent.CLOSED;
+            if (current == Idempotent.CLOSING || !current.canEverTransition(goal)) {
+                return;
+            }
+            if (change(current, goal)) {
+                runWithIgnore(validClose::close);
+                if (goal == Idempotent.CLOSING) {
+                    change(Idempotent.CLOSING, Idempotent.CLOSED);
+                }
+                return;
+            }
+        }
+    }
+    
+    IdempotentLifeCycle() {
+    }
+    
+    private boolean change(Idempotent from, Idempotent to) {
+        if (!STATE.compareAndSet(this, from.ordinal(), to.ordinal())) {
+            return false;
+        }
+        final List<NotifyValueSubscription<Idempotent>> known = listeners;
+        if (known != null && !known.isEmpty()) {
+            known.forEach(subscription -> subscription.process(to));
+        }
+        return true;
+    }
+    
+    private List<NotifyValueSubscription<Idempotent>> getListeners() {
+        final List<NotifyValueSubscription<Idempotent>> known = listeners;
+        if (known != null) {
+            return known;
+        }
+        synchronized (this) {
+            if (listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+            }
+            return listeners;
+        }
+    }
+    
+    private static final Idempotent[] STATES = Idempotent.values();
+    private static final VarHandle STATE;
+    
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(IdempotentLifeCycle.class, "state", int.class);
+        } catch (ReflectiveOperationException thrown) {
+            throw new ExceptionInInitializerError(thrown);
+        }
+    }
+    
+    private volatile int state = Idempotent.OPENABLE.ordinal();
+    private volatile List<NotifyValueSubscription<Idempotent>> listeners;
+}
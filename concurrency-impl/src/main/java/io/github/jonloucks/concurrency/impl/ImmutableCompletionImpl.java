@@ -8,9 +8,15 @@ import java.util.concurrent.Future;
 import static io.github.jonloucks.concurrency.impl.Internal.stateCheck;
 import static io.github.jonloucks.contracts.api.Checks.configCheck;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+import static java.util.Optional.ofNullable;
 
-@SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-
+/**
+ * Immutable completions use the smallest representation that fits: one shared instance per state
+ * when there is nothing else, the value alone for a success, the thrown alone for a failure
+ * and every field otherwise. Fields are nullable and Optionals are created when asked for.
+ *
+ * @param <T> the type of completion value
+ */
 final class ImmutableCompletionImpl<T> implements Completion<T> {
     @Override
     public State getState() {
@@ -19,29 +25,149 @@ final class ImmutableCompletionImpl<T> implements Completion<T> {
     
     @Override
     public Optional<Throwable> getThrown() {
-        return thrown;
+        return ofNullable(thrown);
     }
     
     @Override
     public Optional<T> getValue() {
-        return value;
+        return ofNullable(value);
     }
     
     @Override
     public Optional<Future<T>> getFuture() {
-        return future;
+        return ofNullable(future);
     }
     
-    ImmutableCompletionImpl(Completion.Config<T> config) {
+    /**
+     * @param config the completion to copy
+     * @return the smallest immutable copy
+     * @param <T> the type of completion value
+     */
+    static <T> Completion<T> of(Completion.Config<T> config) {
         final Completion.Config<T> validConfig = configCheck(config);
-        this.state = stateCheck(validConfig.getState());
-        this.thrown = nullCheck(validConfig.getThrown(), "Optional thrown must be present.");
-        this.value = nullCheck(validConfig.getValue(), "Optional value must be present.");
-        this.future = nullCheck(validConfig.getFuture(), "Optional future must be present.");
+        final State validState = stateCheck(validConfig.getState());
+        final Optional<Throwable> validThrown = nullCheck(validConfig.getThrown(), "Optional thrown must be present.");
+        final Optional<T> validValue = nullCheck(validConfig.getValue(), "Optional value must be present.");
+        final Optional<Future<T>> validFuture = nullCheck(validConfig.getFuture(), "Optional future must be present.");
+        return of(validState, validValue.orElse(null), validThrown.orElse(null), validFuture.orElse(null));
+    }
+    
+    /**
+     * @param state the state
+     * @param value the value, can be null
+     * @param thrown the thrown, can be null
+     * @param future the future, can be null
+     * @return the smallest immutable completion
+     * @param <T> the type of completion value
+     */
+    static <T> Completion<T> of(State state, T value, Throwable thrown, Future<T> future) {
+        if (future != null || (value != null && thrown != null)) {
+            return new ImmutableCompletionImpl<>(state, value, thrown, future);
+        } else if (value != null) {
+            return state == State.SUCCEEDED ? succeeded(value) : new ImmutableCompletionImpl<>(state, value, null, null);
+        } else if (thrown != null) {
+            return state == State.FAILED ? failed(thrown) : new ImmutableCompletionImpl<>(state, null, thrown, null);
+        }
+        return of(state);
+    }
+    
+    /**
+     * @param state the state
+     * @return the shared completion with nothing but the state
+     * @param <T> the type of completion value
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Completion<T> of(State state) {
+        return (Completion<T>) VALUELESS[state.ordinal()];
+    }
+    
+    /**
+     * @param value the value, can be null
+     * @return a successful completion
+     * @param <T> the type of completion value
+     */
+    static <T> Completion<T> succeeded(T value) {
+        return value == null ? of(State.SUCCEEDED) : new Succeeded<>(value);
+    }
+    
+    /**
+     * @param thrown the reason, can be null
+     * @return a failed completion
+     * @param <T> the type of completion value
+     */
+    static <T> Completion<T> failed(Throwable thrown) {
+        return thrown == null ? of(State.FAILED) : new Failed<>(thrown);
+    }
+    
+    private ImmutableCompletionImpl(State state, T value, Throwable thrown, Future<T> future) {
+        this.state = state;
+        this.value = value;
+        this.thrown = thrown;
+        this.future = future;
+    }
+    
+    private static final class Valueless<T> implements Completion<T> {
+        @Override
+        public State getState() {
+            return state;
+        }
+        
+        private Valueless(State state) {
+            this.state = state;
+        }
+        
+        private final State state;
+    }
+    
+    private static final class Succeeded<T> implements Completion<T> {
+        @Override
+        public State getState() {
+            return State.SUCCEEDED;
+        }
+        
+        @Override
+        public Optional<T> getValue() {
+            return Optional.of(value);
+        }
+        
+        private Succeeded(T value) {
+            this.value = value;
+        }
+        
+        private final T value;
+    }
+    
+    private static final class Failed<T> implements Completion<T> {
+        @Override
+        public State getState() {
+            return State.FAILED;
+        }
+        
+        @Override
+        public Optional<Throwable> getThrown() {
+            return Optional.of(thrown);
+        }
+        
+        private Failed(Throwable thrown) {
+            this.thrown = thrown;
+        }
+        
+        private final Throwable thrown;
+    }
+    
+    private static final Completion<?>[] VALUELESS = createValueless();
+    
+    private static Completion<?>[] createValueless() {
+        final State[] states = State.values();
+        final Completion<?>[] valueless = new Completion<?>[states.length];
+        for (State state : states) {
+            valueless[state.ordinal()] = new Valueless<>(state);
+        }
+        return valueless;
     }
     
-    private final Completion.State state;
-    private final Optional<Throwable> thrown;
-    private final Optional<T> value;
-    private final Optional<Future<T>> future;
+    private final State state;
+    private final T value;
+    private final Throwable thrown;
+    private final Future<T> future;
 }
@@ -0,0 +1,50 @@
+package io.github.jonloucks.concurrency.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the opened Completables of one Concurrency that have not completed,
+ * so closing can wait for them to drain. Waiters are only woken when the count reaches zero.
+ */
+final class InFlight {
+    
+    void enter() {
+        count.incrementAndGet();
+    }
+    
+    void exit() {
+        if (count.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * @return the number of Completables in flight
+     */
+    int getCount() {
+        return count.get();
+    }
+    
+    /**
+     * @param deadlineNanos the {@link System#nanoTime()} to stop waiting
+     * @return true if nothing is in flight
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized boolean awaitEmpty(long deadlineNanos) throws InterruptedException {
+        for (long remaining = deadlineNanos - System.nanoTime(); count.get() > 0; remaining = deadlineNanos - System.nanoTime()) {
+            if (remaining <= 0) {
+                return false;
+            }
+            final long millis = Math.max(1, remaining / 1_000_000);
+            wait(millis);
+        }
+        return true;
+    }
+    
+    InFlight() {
+    }
+    
+    private final AtomicInteger count = new AtomicInteger();
+}
@@ -0,0 +1,75 @@
+package io.github.jonloucks.concurrency.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * Multiple producer, single consumer executor.
+ * Tasks are queued without locking and run in order by at most one thread of the delegate at a time.
+ * When the delegate rejects a drain every queued task is dropped, tasks that are {@link Rejectable} are told why.
+ */
+final class Mailbox implements Executor {
+    
+    /**
+     * A task that is told when it will never run
+     */
+    interface Rejectable extends Runnable {
+        
+        /**
+         * @param thrown the reason the task will not run
+         */
+        void reject(Throwable thrown);
+    }
+    
+    @Override
+    public void execute(Runnable task) {
+        final Runnable validTask = nullCheck(task, "Task must be present.");
+        queue.offer(validTask);
+        if (isDraining.compareAndSet(false, true)) {
+            try {
+                delegate.execute(this::drain);
+            } catch (RuntimeException | Error thrown) {
+                queue.remove(validTask);
+                rejectAll(thrown);
+                throw thrown;
+            }
+        }
+    }
+    
+    Mailbox(Executor delegate) {
+        this.delegate = nullCheck(delegate, "Executor must be present.");
+    }
+    
+    private void drain() {
+        do {
+            for (Runnable task = queue.poll(); task != null; task = queue.poll()) {
+                runWithIgnore(task::run);
+            }
+            isDraining.set(false);
+        } while (!queue.isEmpty() && isDraining.compareAndSet(false, true));
+    }
+    
+    /**
+     * Other producers may have queued tasks without scheduling a drain while this one was being scheduled
+     */
+    private void rejectAll(Throwable thrown) {
+        do {
+            for (Runnable task = queue.poll(); task != null; task = queue.poll()) {
+                if (task instanceof Rejectable) {
+                    final Rejectable rejectable = (Rejectable) task;
+                    runWithIgnore(() -> rejectable.reject(thrown));
+                }
+            }
+            isDraining.set(false);
+        } while (!queue.isEmpty() && isDraining.compareAndSet(false, true));
+    }
+    
+    private final Executor delegate;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isDraining = new AtomicBoolean(false);
+}
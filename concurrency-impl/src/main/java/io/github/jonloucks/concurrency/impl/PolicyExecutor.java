@@ -0,0 +1,134 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Concurrency;
+import io.github.jonloucks.concurrency.api.Concurrency.Config.ExecutionPolicy;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.jonloucks.contracts.api.Checks.illegalCheck;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * The shared executor of one Concurrency, built from its execution policy when the first task arrives.
+ * Every policy is bounded: the platform pool by its queue and the others by a limit on tasks in flight,
+ * so an overloaded executor rejects work instead of growing without limit.
+ */
+final class PolicyExecutor implements Executor {
+    
+    @Override
+    public void execute(Runnable command) {
+        final Runnable validCommand = nullCheck(command, "Command must be present.");
+        final ExecutorService started = start();
+        if (permits == null) {
+            started.execute(validCommand);
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Execution queue is full.");
+        }
+        try {
+            started.execute(() -> {
+                try {
+                    validCommand.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (Throwable thrown) {
+            permits.release();
+            throw thrown;
+        }
+    }
+    
+    /**
+     * Stop accepting tasks, tasks already accepted still run
+     */
+    synchronized void shutdown() {
+        isShutdown = true;
+        if (delegate != null) {
+            delegate.shutdown();
+        }
+    }
+    
+    /**
+     * @param deadlineNanos the {@link System#nanoTime()} to stop waiting
+     * @return true if every accepted task finished before the deadline
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitTermination(long deadlineNanos) throws InterruptedException {
+        final ExecutorService stopping;
+        synchronized (this) {
+            stopping = delegate;
+        }
+        return stopping == null || stopping.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+    
+    PolicyExecutor(Concurrency.Config config) {
+        this.policy = nullCheck(config.executionPolicy(), "Execution policy must be present.");
+        this.threads = illegalCheck(config.executionThreads(), config.executionThreads() < 1,
+            "Execution threads must be positive.");
+        this.queueSize = illegalCheck(config.executionQueueSize(), config.executionQueueSize() < 1,
+            "Execution queue size must be positive.");
+        this.permits = policy == ExecutionPolicy.PLATFORM_POOL ? null : new Semaphore(threads + queueSize);
+    }
+    
+    private ExecutorService start() {
+        final ExecutorService known = delegate;
+        if (known != null) {
+            return known;
+        }
+        synchronized (this) {
+            if (isShutdown) {
+                throw new RejectedExecutionException("Executor is shut down.");
+            }
+            if (delegate == null) {
+                delegate = create();
+            }
+            return delegate;
+        }
+    }
+    
+    private ExecutorService create() {
+        switch (policy) {
+            case FORK_JOIN:
+                return new ForkJoinPool(threads);
+            case THREAD_PER_TASK:
+                return newThreadPerTask();
+            default:
+                final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueSize), this::newWorkerThread);
+                pool.allowCoreThreadTimeOut(true);
+                return pool;
+        }
+    }
+    
+    /**
+     * Virtual threads are used when the runtime has them, otherwise a new platform thread is started
+     * for each task and kept briefly for reuse.
+     */
+    private ExecutorService newThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), this::newWorkerThread);
+        }
+    }
+    
+    private Thread newWorkerThread(Runnable runnable) {
+        final Thread thread = new Thread(runnable, "Concurrency-worker-" + workerCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    
+    private final ExecutionPolicy policy;
+    private final int threads;
+    private final int queueSize;
+    private final Semaphore permits;
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private volatile ExecutorService delegate;
+    private boolean isShutdown;
+}
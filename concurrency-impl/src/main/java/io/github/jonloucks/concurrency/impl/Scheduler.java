@@ -0,0 +1,102 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.contracts.api.AutoClose;
+
+import java.time.Duration;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * Runs delayed tasks for everything created by one Concurrency on a single daemon thread.
+ * The thread is started by the first task and cancelled tasks are removed immediately,
+ * so a pending delay costs a queue entry instead of a sleeping thread.
+ * Tasks hand their work to the executor of the Concurrency, so a slow callback never delays another task.
+ */
+final class Scheduler {
+    
+    /**
+     * @param delay the time to wait before running the task
+     * @param task the task, it should hand off any lengthy work
+     * @return closing cancels the task if it has not started
+     * @throws IllegalStateException if the scheduler has been shut down, the task will never run
+     */
+    synchronized AutoClose schedule(Duration delay, Runnable task) {
+        final Runnable validTask = nullCheck(task, "Task must be present.");
+        final long delayNanos = nullCheck(delay, "Delay must be present.").toNanos();
+        if (isShutdown) {
+            throw new IllegalStateException("Scheduler must be running.");
+        }
+        if (timer == null) {
+            timer = new ScheduledThreadPoolExecutor(1, Scheduler::newSchedulerThread);
+            timer.setRemoveOnCancelPolicy(true);
+        }
+        final ScheduledFuture<?> future = timer.schedule(() -> runWithIgnore(validTask::run), delayNanos, TimeUnit.NANOSECONDS);
+        return () -> future.cancel(false);
+    }
+    
+    /**
+     * Run the work on the executor of the Concurrency, or on the calling thread if the executor rejects it
+     *
+     * @param work the work handed off by a task
+     */
+    void handOff(Runnable work) {
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException thrown) {
+            work.run();
+        }
+    }
+    
+    /**
+     * Run the pending tasks that are due by the deadline and cancel the rest, later tasks are ignored
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} to stop waiting
+     * @return true if every task that was due ran before the deadline
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean shutdown(long deadlineNanos) throws InterruptedException {
+        final ScheduledThreadPoolExecutor stopping;
+        synchronized (this) {
+            isShutdown = true;
+            stopping = timer;
+            timer = null;
+        }
+        if (stopping == null) {
+            return true;
+        }
+        final long remaining = deadlineNanos - System.nanoTime();
+        for (Runnable task : stopping.getQueue().toArray(new Runnable[0])) {
+            if (((Delayed) task).getDelay(TimeUnit.NANOSECONDS) > remaining) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+        stopping.shutdown();
+        if (stopping.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            return true;
+        }
+        stopping.shutdownNow();
+        return false;
+    }
+    
+    Scheduler(Executor executor) {
+        this.executor = nullCheck(executor, "Executor must be present.");
+    }
+    
+    private static Thread newSchedulerThread(Runnable runnable) {
+        final Thread thread = new Thread(runnable, "Concurrency-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    private final Executor executor;
+    private ScheduledThreadPoolExecutor timer;
+    private boolean isShutdown;
+}
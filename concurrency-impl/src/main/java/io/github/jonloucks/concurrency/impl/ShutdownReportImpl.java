@@ -0,0 +1,48 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Concurrency;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+final class ShutdownReportImpl implements Concurrency.ShutdownReport {
+    
+    @Override
+    public Duration getDuration(Phase phase) {
+        return durations.getOrDefault(nullCheck(phase, "Phase must be present."), Duration.ZERO);
+    }
+    
+    @Override
+    public boolean isDrained() {
+        return isDrained;
+    }
+    
+    @Override
+    public String toString() {
+        return "ShutdownReport" + durations + (isDrained ? " drained" : " not drained");
+    }
+    
+    ShutdownReportImpl() {
+    }
+    
+    /**
+     * @param phase the phase that just finished
+     * @param startNanos the {@link System#nanoTime()} the phase started
+     * @return the time the phase finished, the start of the next phase
+     */
+    long record(Phase phase, long startNanos) {
+        final long endNanos = System.nanoTime();
+        durations.put(phase, Duration.ofNanos(endNanos - startNanos));
+        return endNanos;
+    }
+    
+    void notDrained() {
+        isDrained = false;
+    }
+    
+    private final Map<Phase, Duration> durations = new EnumMap<>(Phase.class);
+    private boolean isDrained = true;
+}
@@ -0,0 +1,446 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.StateMachine.Config;
+import io.github.jonloucks.concurrency.api.StateMachine.Rule;
+import io.github.jonloucks.concurrency.api.StateMachine.Timeout;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+import static io.github.jonloucks.concurrency.impl.Internal.ruleCheck;
+import static io.github.jonloucks.concurrency.impl.Internal.stateCheck;
+import static io.github.jonloucks.contracts.api.Checks.*;
+
+/**
+ * The compiled form of a StateMachine configuration.
+ * Ancestors and entry states are resolved once, so a transition in a deep hierarchy
+ * costs the same set lookups as a transition in a flat one.
+ * When every rule of a state is pure its decisions are remembered, one byte per event and goal state,
+ * allocated the first time the state decides a transition.
+ *
+ * @param <S> the type of each state
+ */
+final class StateGraph<S> {
+    
+    /**
+     * A state with its precomputed position in the hierarchy
+     *
+     * @param <S> the type of each state
+     */
+    static final class Node<S> {
+        
+        S getState() {
+            return state;
+        }
+        
+        /**
+         * @return the composite state containing this state or null if this state is not nested
+         */
+        Node<S> getParent() {
+            return parent;
+        }
+        
+        /**
+         * @return the state entered when this state is the goal of a transition
+         */
+        Node<S> getEntry() {
+            return entry;
+        }
+        
+        /**
+         * @param state the state to check
+         * @return true if the given state is this state or one of its ancestors
+         */
+        boolean isWithin(S state) {
+            return lineage.contains(state);
+        }
+        
+        /**
+         * @return the stable identifier of the state, the enum ordinal or the registration index
+         */
+        int getId() {
+            return id;
+        }
+        
+        /**
+         * @return the timeout of the state or null if the state is not timed
+         */
+        Timeout<S> getTimeout() {
+            return timeout;
+        }
+        
+        private Node(int id, S state, Node<S> parent, List<Rule<S>> rules) {
+            this.id = id;
+            this.state = state;
+            this.parent = parent;
+            this.rules = rules;
+            this.lineage = new HashSet<>();
+            this.lineage.add(state);
+            if (parent != null) {
+                this.lineage.addAll(parent.lineage);
+            }
+            this.entry = this;
+            this.isPure = !rules.isEmpty() && rules.stream().allMatch(Rule::isPure);
+        }
+        
+        /**
+         * @return the remembered decisions by event identifier, created on first use
+         */
+        private AtomicReferenceArray<byte[]> decisions() {
+            final AtomicReferenceArray<byte[]> known = decisions;
+            if (known != null) {
+                return known;
+            }
+            synchronized (this) {
+                if (decisions == null) {
+                    decisions = new AtomicReferenceArray<>(MAX_REMEMBERED_EVENTS);
+                }
+                return decisions;
+            }
+        }
+        
+        private final int id;
+        private final S state;
+        private final Node<S> parent;
+        private final List<Rule<S>> rules;
+        private final Set<S> lineage;
+        private final boolean isPure;
+        private volatile AtomicReferenceArray<byte[]> decisions;
+        private Node<S> entry;
+        private Timeout<S> timeout;
+        private BitSet reachable;
+    }
+    
+    /**
+     * @param state the state
+     * @return the node of the state or null if the state is unknown
+     */
+    Node<S> findNode(S state) {
+        return nodes.get(state);
+    }
+    
+    /**
+     * @param id the stable identifier of a state
+     * @return the node of the state or null if the identifier is unknown
+     */
+    Node<S> findNode(int id) {
+        final S state = 0 <= id && id < idToState.size() ? idToState.get(id) : null;
+        return state == null ? null : nodes.get(state);
+    }
+    
+    /**
+     * @return one more than the largest state identifier
+     */
+    int getIdLimit() {
+        return idToState.size();
+    }
+    
+    /**
+     * @return the same for graphs with the same states, nesting and initial state, written with snapshots
+     */
+    int getSignature() {
+        return signature;
+    }
+    
+    /**
+     * Determine if a transition is allowed.
+     * The rules of the current state and the rules of every ancestor being left must all pass.
+     *
+     * @param from  the current state
+     * @param event the event name
+     * @param goal  the requested goal state
+     * @return true if the transition is allowed
+     */
+    boolean isAllowed(Node<S> from, String event, Node<S> goal) {
+        final Node<S> to = goal.entry;
+        if (from == to || !passes(from, event, goal)) {
+            return false;
+        }
+        for (Node<S> exiting = from.parent; exiting != null && !to.isWithin(exiting.state); exiting = exiting.parent) {
+            if (!passes(exiting, event, goal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @param from the current node
+     * @return the identifiers of the states that could be entered from the node by one or more transitions
+     */
+    BitSet getReachable(Node<S> from) {
+        if (!isAnalyzed) {
+            analyze();
+        }
+        return from.reachable;
+    }
+    
+    /**
+     * @return the nodes that can be the current state, ordered by identifier
+     */
+    List<Node<S>> getEnterableNodes() {
+        final List<Node<S>> enterable = new ArrayList<>();
+        for (S state : idToState) {
+            final Node<S> node = nodes.get(state);
+            if (node != null && node.entry == node) {
+                enterable.add(node);
+            }
+        }
+        return enterable;
+    }
+    
+    /**
+     * The goal is evaluated here against every enterable state, before any lock is taken by the caller
+     *
+     * @param goal the predicate being waited for
+     * @return a predicate that is true when no state satisfying the goal can be reached from a given state
+     */
+    Predicate<S> unreachable(Predicate<S> goal) {
+        return new Unreachable<>(this, goal);
+    }
+    
+    /**
+     * @return true if any state has a timeout
+     */
+    boolean hasTimeouts() {
+        return hasTimeouts;
+    }
+    
+    /**
+     * @return the node entered when the state machine is created
+     */
+    Node<S> getInitialNode() {
+        return initialNode;
+    }
+    
+    StateGraph(Config<S> config) {
+        final Config<S> validConfig = configCheck(config);
+        final S initial = validConfig.getInitial().orElseThrow(StateGraph::getInitialStateNotPresentException);
+        
+        final Map<S, Set<Rule<S>>> rulesLookup = new LinkedHashMap<>();
+        addStateAndRules(rulesLookup, initial, Collections.emptyList());
+        validConfig.getStates().forEach(state -> addStateAndRules(rulesLookup, state, validConfig.getStateRules(state)));
+        
+        this.idToState = isSameEnum(initial, rulesLookup.keySet()) ? enumConstants(initial) : new ArrayList<>(rulesLookup.keySet());
+        final Map<S, Integer> registrationIds = new HashMap<>();
+        idToState.forEach(state -> registrationIds.put(state, registrationIds.size()));
+        rulesLookup.keySet().forEach(state -> addNode(validConfig, rulesLookup, registrationIds, state, new HashSet<>()));
+        nodes.values().forEach(node -> node.entry = resolveEntry(validConfig, node));
+        nodes.values().forEach(node -> node.timeout = validConfig.getTimeout(node.state).map(this::timeoutCheck).orElse(null));
+        this.hasTimeouts = nodes.values().stream().anyMatch(node -> node.timeout != null);
+        this.initialNode = nodes.get(initial).entry;
+        this.signature = computeSignature();
+    }
+    
+    private synchronized void analyze() {
+        if (isAnalyzed) {
+            return;
+        }
+        final List<Node<S>> enterable = getEnterableNodes();
+        final Map<Node<S>, BitSet> successors = new HashMap<>();
+        for (Node<S> from : enterable) {
+            final BitSet next = new BitSet();
+            for (Node<S> goal : nodes.values()) {
+                if (isEverAllowed(from, goal)) {
+                    next.set(goal.entry.id);
+                }
+            }
+            successors.put(from, next);
+        }
+        for (Node<S> from : enterable) {
+            final BitSet closure = new BitSet();
+            final BitSet frontier = (BitSet) successors.get(from).clone();
+            for (int id = frontier.nextSetBit(0); id >= 0; id = frontier.nextSetBit(0)) {
+                frontier.clear(id);
+                closure.set(id);
+                final BitSet next = (BitSet) successors.get(findNode(id)).clone();
+                next.andNot(closure);
+                frontier.or(next);
+            }
+            from.reachable = closure;
+        }
+        isAnalyzed = true;
+    }
+    
+    private boolean isEverAllowed(Node<S> from, Node<S> goal) {
+        final Node<S> to = goal.entry;
+        if (from == to || !passesEver(from, goal.state)) {
+            return false;
+        }
+        for (Node<S> exiting = from.parent; exiting != null && !to.isWithin(exiting.state); exiting = exiting.parent) {
+            if (!passesEver(exiting, goal.state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean passesEver(Node<S> node, S goal) {
+        return node.rules.stream().allMatch(rule -> rule.canEverTransition(goal));
+    }
+    
+    private BitSet findTargets(Predicate<S> goal) {
+        final BitSet targets = new BitSet();
+        for (Node<S> node : getEnterableNodes()) {
+            if (goal.test(node.state)) {
+                targets.set(node.id);
+            }
+        }
+        return targets;
+    }
+    
+    private boolean passes(Node<S> node, String event, Node<S> goal) {
+        final int eventId = node.isPure ? findEventId(event) : -1;
+        if (eventId < 0) {
+            return invokeRules(node, event, goal.state);
+        }
+        final AtomicReferenceArray<byte[]> decisions = node.decisions();
+        byte[] row = decisions.get(eventId);
+        if (row == null) {
+            decisions.compareAndSet(eventId, null, new byte[idToState.size()]);
+            row = decisions.get(eventId);
+        }
+        final byte known = row[goal.id];
+        if (known != UNDECIDED) {
+            return known == ALLOWED;
+        }
+        final boolean allowed = invokeRules(node, event, goal.state);
+        row[goal.id] = allowed ? ALLOWED : DENIED; // a racing write stores the same decision
+        return allowed;
+    }
+    
+    /**
+     * @param event the event name
+     * @return the identifier of the event or -1 when too many events are already remembered
+     */
+    private int findEventId(String event) {
+        final Integer known = eventIds.get(event);
+        if (known != null) {
+            return known;
+        }
+        synchronized (eventIds) {
+            if (eventIds.size() >= MAX_REMEMBERED_EVENTS) {
+                return -1;
+            }
+            return eventIds.computeIfAbsent(event, e -> eventIds.size());
+        }
+    }
+    
+    private boolean invokeRules(Node<S> node, String event, S goal) {
+        final List<Rule<S>> rules = node.rules;
+        for (int i = 0, size = rules.size(); i < size; i++) {
+            if (!rules.get(i).canTransition(event, goal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private Node<S> addNode(Config<S> config, Map<S, Set<Rule<S>>> rulesLookup, Map<S, Integer> ids, S state, Set<S> visiting) {
+        final Node<S> known = nodes.get(state);
+        if (known != null) {
+            return known;
+        }
+        illegalCheck(state, !visiting.add(state), "State hierarchy must not have cycles.");
+        final Node<S> parentNode = config.getParent(state)
+            .map(parent -> addNode(config, rulesLookup, ids, knownCheck(rulesLookup, parent), visiting))
+            .orElse(null);
+        final Node<S> node = new Node<>(ids.get(state), state, parentNode, new ArrayList<>(rulesLookup.get(state)));
+        nodes.put(state, node);
+        return node;
+    }
+    
+    private Node<S> resolveEntry(Config<S> config, Node<S> node) {
+        Node<S> entry = node;
+        for (Optional<S> child = config.getInitial(entry.state); child.isPresent(); child = config.getInitial(entry.state)) {
+            final Node<S> childNode = nodes.get(child.get());
+            illegalCheck(child.get(), childNode == null || childNode.parent != entry,
+                "Initial child state must be a child of the composite state.");
+            entry = childNode;
+        }
+        return entry;
+    }
+    
+    private Timeout<S> timeoutCheck(Timeout<S> timeout) {
+        illegalCheck(timeout, timeout.getDuration() == null || timeout.getEvent() == null,
+            "Timeout must have a duration and event.");
+        illegalCheck(timeout, !nodes.containsKey(timeout.getState()), "Timeout state must be known.");
+        return timeout;
+    }
+    
+    /**
+     * Only the names of enum and String states are used, other states are known by identifier alone
+     */
+    private int computeSignature() {
+        int hash = 31 * idToState.size() + initialNode.id;
+        for (int id = 0; id < idToState.size(); id++) {
+            final Node<S> node = findNode(id);
+            if (node != null) {
+                final S state = node.state;
+                final int name = state instanceof Enum ? ((Enum<?>) state).name().hashCode() : state instanceof String ? state.hashCode() : 0;
+                hash = 31 * (31 * (31 * hash + id) + name) + (node.parent == null ? -1 : node.parent.id);
+            }
+        }
+        return hash;
+    }
+    
+    private static <S> boolean isSameEnum(S initial, Set<S> states) {
+        if (initial instanceof Enum) {
+            final Class<?> enumClass = ((Enum<?>) initial).getDeclaringClass();
+            return states.stream().allMatch(s -> s instanceof Enum && ((Enum<?>) s).getDeclaringClass() == enumClass);
+        }
+        return false;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <S> List<S> enumConstants(S state) {
+        return Arrays.asList((S[]) ((Enum<?>) state).getDeclaringClass().getEnumConstants());
+    }
+    
+    private static <S> S knownCheck(Map<S, ?> rulesLookup, S state) {
+        return illegalCheck(state, !rulesLookup.containsKey(state), "Parent state must be known.");
+    }
+    
+    private static <S> void addStateAndRules(Map<S, Set<Rule<S>>> rulesLookup, S state, List<Rule<S>> rules) {
+        final S validState = stateCheck(state);
+        final List<Rule<S>> validRules = nullCheck(rules, "Rules must be present.");
+        final Set<Rule<S>> knownRules = rulesLookup.computeIfAbsent(validState, k -> new LinkedHashSet<>());
+        validRules.forEach(rule -> knownRules.add(ruleCheck(rule)));
+    }
+    
+    private static IllegalArgumentException getInitialStateNotPresentException() {
+        return new IllegalArgumentException("Initial state must be present.");
+    }
+    
+    private static final class Unreachable<S> implements Predicate<S> {
+        
+        @Override
+        public boolean test(S state) {
+            final Node<S> node = graph.findNode(state);
+            return !targets.get(node.id) && !graph.getReachable(node).intersects(targets);
+        }
+        
+        private Unreachable(StateGraph<S> graph, Predicate<S> goal) {
+            this.graph = graph;
+            this.targets = graph.findTargets(goal);
+        }
+        
+        private final StateGraph<S> graph;
+        private final BitSet targets;
+    }
+    
+    private static final int MAX_REMEMBERED_EVENTS = 64;
+    private static final byte UNDECIDED = 0;
+    private static final byte ALLOWED = 1;
+    private static final byte DENIED = 2;
+    
+    private final Map<S, Node<S>> nodes = new HashMap<>();
+    private final Map<String, Integer> eventIds = new ConcurrentHashMap<>();
+    private final Node<S> initialNode;
+    private final List<S> idToState;
+    private final boolean hasTimeouts;
+    private final int signature;
+    private volatile boolean isAnalyzed;
+}
@@ -0,0 +1,57 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.StateMachine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static io.github.jonloucks.concurrency.impl.Internal.stateCheck;
+
+final class StateMachineAnalysisImpl<S> implements StateMachine.Analysis<S> {
+    
+    @Override
+    public List<S> getDeadStates() {
+        final StateGraph.Node<S> initial = graph.getInitialNode();
+        final BitSet reachable = graph.getReachable(initial);
+        final List<S> dead = new ArrayList<>();
+        for (StateGraph.Node<S> node : graph.getEnterableNodes()) {
+            if (node != initial && !reachable.get(node.getId())) {
+                dead.add(node.getState());
+            }
+        }
+        return dead;
+    }
+    
+    @Override
+    public List<S> getTerminalStates() {
+        final List<S> terminal = new ArrayList<>();
+        for (StateGraph.Node<S> node : graph.getEnterableNodes()) {
+            if (graph.getReachable(node).isEmpty()) {
+                terminal.add(node.getState());
+            }
+        }
+        return terminal;
+    }
+    
+    @Override
+    public boolean isReachable(S from, S to) {
+        final StateGraph.Node<S> fromNode = existsCheck(from).getEntry();
+        final StateGraph.Node<S> toNode = existsCheck(to).getEntry();
+        return graph.getReachable(fromNode).get(toNode.getId());
+    }
+    
+    StateMachineAnalysisImpl(StateGraph<S> graph) {
+        this.graph = graph;
+    }
+    
+    private StateGraph.Node<S> existsCheck(S state) {
+        final StateGraph.Node<S> node = graph.findNode(stateCheck(state));
+        if (node == null) {
+            throw new IllegalArgumentException("State must be known.");
+        }
+        return node;
+    }
+    
+    private final StateGraph<S> graph;
+}
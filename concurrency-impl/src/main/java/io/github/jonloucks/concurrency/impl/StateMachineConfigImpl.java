@@ -2,11 +2,13 @@ package io.github.jonloucks.concurrency.impl;
 
 import io.github.jonloucks.concurrency.api.StateMachine;
 import io.github.jonloucks.concurrency.api.StateMachine.Rule;
+import io.github.jonloucks.concurrency.api.StateMachine.Timeout;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executor;
 
-import static io.github.jonloucks.concurrency.impl.Internal.ruleCheck;
-import static io.github.jonloucks.concurrency.impl.Internal.stateCheck;
+import static io.github.jonloucks.concurrency.impl.Internal.*;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
 import static java.util.Collections.emptyList;
 import static java.util.Optional.ofNullable;
@@ -49,6 +51,47 @@ final class StateMachineConfigImpl<T> implements StateMachine.Config.Builder<T>
         return this;
     }
     
+    @Override
+    public Builder<T> parent(T state, T parent) {
+        final T validState = stateCheck(state);
+        final T validParent = nullCheck(parent, "Parent state must be present.");
+        state(validState).state(validParent);
+        parentMap.put(validState, validParent);
+        return this;
+    }
+    
+    @Override
+    public Builder<T> initial(T state, T child) {
+        final T validState = stateCheck(state);
+        final T validChild = nullCheck(child, "Initial child state must be present.");
+        state(validState).state(validChild);
+        initialMap.put(validState, validChild);
+        return this;
+    }
+    
+    @Override
+    public Builder<T> executor(Executor executor) {
+        this.executor = nullCheck(executor, "Executor must be present.");
+        return this;
+    }
+    
+    @Override
+    public Builder<T> singleWriter(boolean singleWriter) {
+        this.singleWriter = singleWriter;
+        return this;
+    }
+    
+    @Override
+    public Builder<T> timeout(T state, Duration duration, String event, T goal) {
+        final T validState = stateCheck(state);
+        final Duration validDuration = timeoutCheck(duration);
+        final String validEvent = eventCheck(event);
+        final T validGoal = nullCheck(goal, "Timeout state must be present.");
+        state(validState).state(validGoal);
+        timeoutMap.put(validState, new TimeoutImpl<>(validDuration, validEvent, validGoal));
+        return this;
+    }
+    
     @Override
     public Optional<T> getInitial() {
         return ofNullable(initialState);
@@ -60,6 +103,31 @@ final class StateMachineConfigImpl<T> implements StateMachine.Config.Builder<T>
         return rulesMap.getOrDefault(validState, emptyList());
     }
     
+    @Override
+    public Optional<T> getParent(T state) {
+        return ofNullable(parentMap.get(stateCheck(state)));
+    }
+    
+    @Override
+    public Optional<T> getInitial(T state) {
+        return ofNullable(initialMap.get(stateCheck(state)));
+    }
+    
+    @Override
+    public Optional<Executor> getExecutor() {
+        return ofNullable(executor);
+    }
+    
+    @Override
+    public boolean isSingleWriter() {
+        return singleWriter;
+    }
+    
+    @Override
+    public Optional<Timeout<T>> getTimeout(T state) {
+        return ofNullable(timeoutMap.get(stateCheck(state)));
+    }
+    
     @Override
     public List<T> getStates() {
         return new ArrayList<>(states);
@@ -68,7 +136,40 @@ final class StateMachineConfigImpl<T> implements StateMachine.Config.Builder<T>
     StateMachineConfigImpl() {
     }
     
+    private static final class TimeoutImpl<T> implements Timeout<T> {
+        
+        @Override
+        public Duration getDuration() {
+            return duration;
+        }
+        
+        @Override
+        public String getEvent() {
+            return event;
+        }
+        
+        @Override
+        public T getState() {
+            return state;
+        }
+        
+        private TimeoutImpl(Duration duration, String event, T state) {
+            this.duration = duration;
+            this.event = event;
+            this.state = state;
+        }
+        
+        private final Duration duration;
+        private final String event;
+        private final T state;
+    }
+    
     private T initialState;
-    private final Set<T> states = new HashSet<>();
+    private Executor executor;
+    private boolean singleWriter;
+    private final Set<T> states = new LinkedHashSet<>();
     private final HashMap<T, List<Rule<T>>> rulesMap = new HashMap<>();
+    private final HashMap<T, T> parentMap = new HashMap<>();
+    private final HashMap<T, T> initialMap = new HashMap<>();
+    private final HashMap<T, Timeout<T>> timeoutMap = new HashMap<>();
 }
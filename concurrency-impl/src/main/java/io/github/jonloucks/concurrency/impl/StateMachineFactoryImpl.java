@@ -1,8 +1,10 @@
 package io.github.jonloucks.concurrency.impl;
 
+import io.github.jonloucks.concurrency.api.Concurrency;
 import io.github.jonloucks.concurrency.api.StateMachine;
 import io.github.jonloucks.concurrency.api.StateMachine.Config;
 import io.github.jonloucks.concurrency.api.StateMachine.Config.Builder;
+import io.github.jonloucks.concurrency.api.StateMachine.Template;
 import io.github.jonloucks.concurrency.api.StateMachineFactory;
 
 import java.util.function.Consumer;
@@ -13,7 +15,7 @@ final class StateMachineFactoryImpl implements StateMachineFactory {
     
     @Override
     public <T> StateMachine<T> create(Config<T> config) {
-        return new StateMachineImpl<>(config);
+        return createTemplate(config).create();
     }
     
     @Override
@@ -23,6 +25,27 @@ final class StateMachineFactoryImpl implements StateMachineFactory {
         return create(config);
     }
     
-    StateMachineFactoryImpl() {
+    @Override
+    public <T> Template<T> createTemplate(Config<T> config) {
+        return new StateMachineTemplateImpl<>(this.config, scheduler, inFlight, waitables, config);
     }
+    
+    @Override
+    public <T> Template<T> createTemplate(Consumer<Builder<T>> builderConsumer) {
+        final StateMachineConfigImpl<T> config = new StateMachineConfigImpl<>();
+        builderConsumerCheck(builderConsumer).accept(config);
+        return createTemplate(config);
+    }
+    
+    StateMachineFactoryImpl(Concurrency.Config config, Scheduler scheduler, InFlight inFlight, WaitableRegistry waitables) {
+        this.config = config;
+        this.scheduler = scheduler;
+        this.inFlight = inFlight;
+        this.waitables = waitables;
+    }
+    
+    private final Concurrency.Config config;
+    private final Scheduler scheduler;
+    private final InFlight inFlight;
+    private final WaitableRegistry waitables;
 }
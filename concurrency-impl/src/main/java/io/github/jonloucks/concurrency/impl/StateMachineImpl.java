@@ -1,15 +1,20 @@
 package io.github.jonloucks.concurrency.impl;
 
-import io.github.jonloucks.concurrency.api.ConcurrencyException;
-import io.github.jonloucks.concurrency.api.StateMachine;
-import io.github.jonloucks.concurrency.api.Waitable;
+import io.github.jonloucks.concurrency.api.*;
 import io.github.jonloucks.contracts.api.AutoClose;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import static io.github.jonloucks.concurrency.impl.Internal.*;
 import static io.github.jonloucks.contracts.api.Checks.*;
@@ -19,11 +24,36 @@ final class StateMachineImpl<S> implements StateMachine<S> {
     
     @Override
     public boolean setState(String event, S state) {
-        if (isTransitionAllowed(event, existsCheck(state))) {
-            currentState.accept(state);
-            return true;
+        final S validState = existsCheck(state);
+        return currentState.update(changeTo(eventCheck(event), validState));
+    }
+    
+    @Override
+    public TransitionResult tryTransition(String event, S state) {
+        final String validEvent = eventCheck(event);
+        final StateGraph.Node<S> goal = graph.findNode(stateCheck(state));
+        if (goal == null) {
+            return TransitionResult.UNKNOWN_STATE;
         }
-        return false;
+        return currentState.updateIf(goal.getEntry().getState(), this, validEvent, goal, classifier(), TransitionResult.OK);
+    }
+    
+    @Override
+    public int applyAll(List<Map.Entry<String, S>> events) {
+        final List<Map.Entry<String, StateGraph.Node<S>>> validEvents = eventsCheck(events);
+        final int[] applied = {0};
+        currentState.update(current -> {
+            StateGraph.Node<S> node = graph.findNode(current);
+            for (Map.Entry<String, StateGraph.Node<S>> event : validEvents) {
+                if (!graph.isAllowed(node, event.getKey(), event.getValue())) {
+                    break;
+                }
+                node = event.getValue().getEntry();
+                applied[0]++;
+            }
+            return node.getState();
+        }, (from, to) -> dispatchSteps(graph.findNode(from), validEvents, applied[0]));
+        return applied[0];
     }
     
     @Override
@@ -35,12 +65,33 @@ final class StateMachineImpl<S> implements StateMachine<S> {
     public Optional<S> getWhen(Predicate<S> predicate, Duration timeout) {
         return currentState.getWhen(predicate, timeout);
     }
+    
+    @Override
+    public Optional<S> getWhenReachable(Predicate<S> predicate, Duration timeout) {
+        final Predicate<S> validPredicate = predicateCheck(predicate);
+        return currentState.getWhen(validPredicate, graph.unreachable(validPredicate), timeout);
+    }
 
     @Override
     public AutoClose notifyIf(Predicate<S> predicate, Consumer<S> listener) {
         return currentState.notifyIf(predicate, listener);
     }
     
+    @Override
+    public AutoClose notifyOnTransition(S from, S to, String event, Consumer<TransitionEvent<S>> listener) {
+        final StateGraph.Node<S> fromNode = graph.findNode(existsCheck(from));
+        final StateGraph.Node<S> toNode = graph.findNode(existsCheck(to)).getEntry();
+        illegalCheck(from, fromNode.getEntry() != fromNode, "From state must not be composite.");
+        final Consumer<TransitionEvent<S>> validListener = listenerCheck(listener);
+        return transitionIndex().subscribe(fromNode.getId(), toNode.getId(),
+            transitionEvent -> event == null || event.equals(transitionEvent.getEvent()), validListener);
+    }
+    
+    @Override
+    public Analysis<S> analyze() {
+        return new StateMachineAnalysisImpl<>(graph);
+    }
+    
     @Override
     public <B extends Transition.Builder<B, S, R>, R> R transition(Consumer<Transition.Builder<B, S, R>> builderConsumer) {
         final TransitionBuilderImpl<B,S,R> builder = new TransitionBuilderImpl<>();
@@ -51,43 +102,295 @@ final class StateMachineImpl<S> implements StateMachine<S> {
     @Override
     public <R> R transition(Transition<S, R> transition) {
         final Transition<S,R> t = transitionCheck(transition);
-        if (isAllowed(t)) {
+        final String event = t.getEvent();
+        if (graph.isAllowed(currentNode(), event, graph.findNode(t.getSuccessState()))) {
             try {
-                return handleSuccess(t);
+                final R value = t.getSuccessValue().map(Supplier::get).orElse(null);
+                if (currentState.update(changeTo(event, t.getSuccessState()))) {
+                    return value;
+                }
             } catch (Throwable thrown) {
                 return handleError(t, thrown);
             }
-        } else {
-            return handleFailure(t);
         }
+        return handleFailure(t);
+    }
+    
+    @Override
+    public <B extends Transition.Builder<B, S, R>, R> PreparedTransition<R> prepare(Consumer<Transition.Builder<B, S, R>> builderConsumer) {
+        final TransitionBuilderImpl<B,S,R> builder = new TransitionBuilderImpl<>();
+        builderConsumerCheck(builderConsumer).accept(builder);
+        return prepare(builder);
+    }
+    
+    @Override
+    public <R> PreparedTransition<R> prepare(Transition<S, R> transition) {
+        return new PreparedTransitionImpl<>(transitionCheck(transition));
+    }
+    
+    @Override
+    public <B extends Transition.Builder<B, S, R>, R> Completable<R> transitionAsync(Consumer<Transition.Builder<B, S, R>> builderConsumer) {
+        final TransitionBuilderImpl<B,S,R> builder = new TransitionBuilderImpl<>();
+        builderConsumerCheck(builderConsumer).accept(builder);
+        return transitionAsync(builder);
+    }
+    
+    @Override
+    public <R> Completable<R> transitionAsync(Transition<S, R> transition) {
+        final Transition<S,R> t = transitionCheck(transition);
+        return submit(() -> transition(t));
+    }
+    
+    @Override
+    public Completable<Boolean> setStateAsync(String event, S state) {
+        final S validState = existsCheck(state);
+        final String validEvent = eventCheck(event);
+        return submit(() -> setState(validEvent, validState));
     }
     
     @Override
     public boolean hasState(S state) {
-        return stateToRulesLookup.containsKey(stateCheck(state));
+        return graph.findNode(stateCheck(state)) != null;
+    }
+    
+    @Override
+    public boolean isInState(S state) {
+        return currentNode().isWithin(stateCheck(state));
     }
     
     @Override
     public boolean isTransitionAllowed(String event, S state) {
-        final String validEvent = Internal.eventCheck(event);
-        final S toState = stateCheck(state);
-        final S fromState = getState();
-        if (hasState(toState) && !fromState.equals(toState)) {
-            final Set<Rule<S>> rules = stateToRulesLookup.get(fromState);
-            if (!rules.isEmpty()) {
-                return rules.stream().allMatch(r -> r.canTransition(validEvent, toState));
+        final String validEvent = eventCheck(event);
+        final StateGraph.Node<S> goal = graph.findNode(stateCheck(state));
+        return goal != null && graph.isAllowed(currentNode(), validEvent, goal);
+    }
+    
+    StateMachineImpl(StateMachineTemplateImpl<S> template) {
+        this.template = template;
+        this.graph = template.getGraph();
+        this.currentState = new WaitableImpl<>(graph.getInitialNode().getState());
+        template.getWaitables().register(currentState); // shut down with the Concurrency
+        this.pendingTimeouts = graph.hasTimeouts() ? new ArrayList<>() : Collections.emptyList();
+        if (graph.hasTimeouts()) {
+            // subscribed with the state lock held so every call schedules with the lock held, lives as long as the state machine
+            currentState.read((state, version) -> currentState.notifyIf(s -> true, this::scheduleTimeouts));
+        }
+    }
+    
+    private static <S> TransitionResult classify(S current, StateMachineImpl<S> machine, String event, StateGraph.Node<S> goal) {
+        final StateGraph.Node<S> from = machine.graph.findNode(current);
+        if (from == goal.getEntry()) {
+            return TransitionResult.SAME_STATE;
+        }
+        if (machine.graph.isAllowed(from, event, goal)) {
+            machine.enter(event, goal);
+            return TransitionResult.OK;
+        }
+        return TransitionResult.ILLEGAL;
+    }
+    
+    /**
+     * Only called with the state lock held, just before the returned state is committed
+     *
+     * @param event the event causing the change
+     * @param goal the goal of the change
+     * @return the state to commit
+     */
+    private S enter(String event, StateGraph.Node<S> goal) {
+        committingEvent = event;
+        return goal.getEntry().getState();
+    }
+    
+    /**
+     * Only called with the state lock held, after a change is committed
+     */
+    private void dispatchTransition(S from, S to) {
+        final TransitionIndex<S> index = transitionIndex;
+        if (index != null) {
+            index.dispatch(graph.findNode(from), graph.findNode(to), committingEvent);
+        }
+    }
+    
+    /**
+     * Only called with the state lock held, after a sequence is committed, each applied step is one change
+     */
+    private void dispatchSteps(StateGraph.Node<S> from, List<Map.Entry<String, StateGraph.Node<S>>> steps, int applied) {
+        final TransitionIndex<S> index = transitionIndex;
+        if (index != null) {
+            StateGraph.Node<S> node = from;
+            for (int i = 0; i < applied; i++) {
+                final StateGraph.Node<S> to = steps.get(i).getValue().getEntry();
+                index.dispatch(node, to, steps.get(i).getKey());
+                node = to;
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <S> WaitableImpl.Decider<S, StateMachineImpl<S>, String, StateGraph.Node<S>, TransitionResult> classifier() {
+        return (WaitableImpl.Decider<S, StateMachineImpl<S>, String, StateGraph.Node<S>, TransitionResult>) (Object) CLASSIFIER;
+    }
+    
+    /**
+     * @return the executor for asynchronous requests, a single writer creates its mailbox on first use
+     */
+    private Executor executor() {
+        if (!template.isSingleWriter()) {
+            return template.getExecutor();
+        }
+        final Mailbox known = mailbox;
+        if (known != null) {
+            return known;
+        }
+        synchronized (this) {
+            if (mailbox == null) {
+                mailbox = new Mailbox(template.getExecutor());
+            }
+            return mailbox;
+        }
+    }
+    
+    private TransitionIndex<S> transitionIndex() {
+        final TransitionIndex<S> known = transitionIndex;
+        if (known != null) {
+            return known;
+        }
+        synchronized (this) {
+            if (transitionIndex == null) {
+                currentState.onChange(this::dispatchTransition);
+                transitionIndex = new TransitionIndex<>(graph.getIdLimit());
+            }
+            return transitionIndex;
+        }
+    }
+    
+    private StateGraph.Node<S> currentNode() {
+        return graph.findNode(currentState.get());
+    }
+    
+    /**
+     * Write the current state identifier and version as one record
+     *
+     * @param buffer the buffer to receive the record
+     */
+    void writeSnapshot(ByteBuffer buffer) {
+        currentState.read((state, version) -> buffer.putInt(graph.findNode(state).getId()).putLong(version));
+    }
+    
+    /**
+     * Replace the current state and version without evaluating rules or notifying listeners
+     *
+     * @param stateId the state identifier
+     * @param version the version
+     */
+    void restoreSnapshot(int stateId, long version) {
+        restoreSnapshot(snapshotCheck(stateId), version);
+    }
+    
+    /**
+     * Replace the current state and version without evaluating rules or notifying listeners
+     *
+     * @param node the node returned by {@link #snapshotCheck(int)}
+     * @param version the version
+     */
+    void restoreSnapshot(StateGraph.Node<S> node, long version) {
+        currentState.restore(node.getState(), version);
+        if (graph.hasTimeouts()) {
+            currentState.read((state, restoredVersion) -> {
+                pendingTimeouts.forEach(PendingTimeout::close);
+                pendingTimeouts.clear();
+                scheduleTimeouts(state);
+            });
+        }
+    }
+    
+    /**
+     * @param stateId the state identifier
+     * @return the node of the state
+     * @throws ConcurrencyException if the state identifier is unknown
+     */
+    StateGraph.Node<S> snapshotCheck(int stateId) {
+        final StateGraph.Node<S> node = graph.findNode(stateId);
+        if (node == null) {
+            throw new ConcurrencyException("Snapshot state must be known.");
+        }
+        return node;
+    }
+    
+    /**
+     * @return the same for StateMachines configured with the same states, nesting and initial state
+     */
+    int getSignature() {
+        return graph.getSignature();
+    }
+    
+    /**
+     * Receive the current state and version now and after each committed change
+     *
+     * @param listener receives the state node and version under the state lock
+     * @return closing stops the notifications
+     */
+    AutoClose notifyCommit(ObjLongConsumer<StateGraph.Node<S>> listener) {
+        return currentState.notifyIf(state -> true,
+            state -> currentState.read((current, version) -> listener.accept(graph.findNode(current), version)));
+    }
+    
+    /**
+     * Cancel the timeouts of the states left and schedule the timeouts of the states entered.
+     * A composite state is not left while moving between its children, so its timeout keeps running.
+     * Only called with the state lock held, so the pending timeouts always belong to the current state.
+     */
+    private void scheduleTimeouts(S state) {
+        final StateGraph.Node<S> current = graph.findNode(state);
+        for (Iterator<PendingTimeout> pendings = pendingTimeouts.iterator(); pendings.hasNext(); ) {
+            final PendingTimeout pending = pendings.next();
+            if (!current.isWithin(pending.node.getState())) {
+                pending.close();
+                pendings.remove();
+            }
+        }
+        for (StateGraph.Node<S> node = current; node != null; node = node.getParent()) {
+            if (node.getTimeout() != null && !isPending(node)) {
+                final PendingTimeout pending = new PendingTimeout(node, node.getTimeout());
+                pendingTimeouts.add(pending);
+                try {
+                    pending.cancel = template.getScheduler().schedule(pending.timeout.getDuration(), () -> runWithIgnore(() -> executor().execute(pending)));
+                } catch (IllegalStateException thrown) {
+                    runWithIgnore(() -> executor().execute(pending)); // the Concurrency is closed, time out now
+                }
+            }
+        }
+    }
+    
+    private boolean isPending(StateGraph.Node<S> node) {
+        for (PendingTimeout pending : pendingTimeouts) {
+            if (pending.node == node) {
+                return true;
             }
-            return true;
         }
         return false;
     }
     
-    StateMachineImpl(Config<S> config) {
-        final Config<S> validConfig = configCheck(config);
-        final S validInitialState = validConfig.getInitial().orElseThrow(this::getInitialStateNotPresentException);
-        this.currentState = new WaitableImpl<>(validInitialState);
-        addStateAndRules(validInitialState, Collections.emptyList() );
-        validConfig.getStates().forEach(state -> addStateAndRules(state, validConfig.getStateRules(state)));
+    private <R> Completable<R> submit(Supplier<R> block) {
+        final CompletableImpl<R> completable = new CompletableImpl<>(template.getConcurrencyConfig(),
+            template.getScheduler(), template.getInFlight(), new Completable.Config<R>() {});
+        completable.open();
+        try {
+            executor().execute(new Mailbox.Rejectable() {
+                @Override
+                public void run() {
+                    runWithIgnore(() -> new CompleteNowImpl<>(completable, block).run());
+                }
+                
+                @Override
+                public void reject(Throwable thrown) {
+                    completable.onCompletion(ImmutableCompletionImpl.failed(thrown));
+                }
+            });
+        } catch (Throwable thrown) {
+            completable.onCompletion(ImmutableCompletionImpl.failed(thrown));
+        }
+        return completable;
     }
     
     private <R> Transition<S,R> transitionCheck(Transition<S,R> transition) {
@@ -99,27 +402,16 @@ final class StateMachineImpl<S> implements StateMachine<S> {
         return validTransition;
     }
     
-    private <R> boolean isAllowed(Transition<S,R> transition) {
-        return isTransitionAllowed(transition.getEvent(), transition.getSuccessState());
-    }
-    
-    private <R> R handleSuccess(Transition<S, R> transition) {
-        final R value = orNull(transition.getSuccessValue());
-        setState(transition.getEvent(), transition.getSuccessState());
-        return value;
-    }
-    
     private <R> R handleFailure(Transition<S, R> transition) {
-        setOptionalState(transition.getFailedState(), transition.getEvent());
+        transition.getFailedState().ifPresent(state -> setState(transition.getEvent(), state));
         if (transition.getFailedValue().isPresent()) {
             return transition.getFailedValue().get().get();
         }
-        throw new ConcurrencyException("Illegal state transition from " + getState() +
-            " to " + transition.getSuccessState() + ".");
+        throw newIllegalTransition(transition.getSuccessState(), transition.isStackless());
     }
     
     private <R> R handleError(Transition<S, R> transition, Throwable thrown) throws Error, RuntimeException {
-        setOptionalState(transition.getErrorState(), transition.getEvent());
+        transition.getErrorState().ifPresent(state -> setState(transition.getEvent(), state));
         if (transition.getErrorValue().isPresent()) {
             return transition.getErrorValue().get().get();
         } else {
@@ -128,14 +420,125 @@ final class StateMachineImpl<S> implements StateMachine<S> {
         }
     }
     
-    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-    private static <X> X orNull(Optional<Supplier<X>> optional) {
-        return optional.map(Supplier::get).orElse(null);
+    private ConcurrencyException newIllegalTransition(S successState, boolean stackless) {
+        if (stackless) {
+            return new IllegalTransitionException(getState(), successState);
+        }
+        return new ConcurrencyException("Illegal state transition from " + getState() +
+            " to " + successState + ".");
+    }
+    
+    /**
+     * @param event the event of the change
+     * @param state the goal state
+     * @return replaces the current state with the goal state if allowed, the same as {@link #setState(String, Object)}
+     */
+    private UnaryOperator<S> changeTo(String event, S state) {
+        final StateGraph.Node<S> goal = graph.findNode(existsCheck(state));
+        return current -> graph.isAllowed(graph.findNode(current), event, goal) ? enter(event, goal) : current;
     }
     
-    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
-    private void setOptionalState(Optional<S> optional, String event) {
-        optional.ifPresent(s -> setState(event, s));
+    /**
+     * Neither the stack trace nor the message are built unless asked for
+     */
+    private static final class IllegalTransitionException extends ConcurrencyException {
+        
+        @Override
+        public String getMessage() {
+            return "Illegal state transition from " + from + " to " + to + ".";
+        }
+        
+        private IllegalTransitionException(Object from, Object to) {
+            super("Illegal state transition.", null, false);
+            this.from = from;
+            this.to = to;
+        }
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final transient Object from;
+        private final transient Object to;
+    }
+    
+    /**
+     * Everything a transition needs is resolved once, executing only reads final fields
+     *
+     * @param <R> the return type of the transition
+     */
+    private final class PreparedTransitionImpl<R> implements PreparedTransition<R> {
+        
+        @Override
+        public R execute() {
+            if (!graph.isAllowed(currentNode(), event, goal)) {
+                return handleFailure();
+            }
+            try {
+                final R value = successValue == null ? null : successValue.get();
+                if (currentState.update(toSuccess)) {
+                    return value;
+                }
+            } catch (Throwable thrown) {
+                return handleError(thrown);
+            }
+            return handleFailure();
+        }
+        
+        private PreparedTransitionImpl(Transition<S, R> transition) {
+            this.event = transition.getEvent();
+            this.successState = transition.getSuccessState();
+            this.goal = graph.findNode(successState);
+            this.toSuccess = changeTo(event, successState);
+            this.toError = transition.getErrorState().map(state -> changeTo(event, state)).orElse(null);
+            this.toFailed = transition.getFailedState().map(state -> changeTo(event, state)).orElse(null);
+            this.successValue = transition.getSuccessValue().orElse(null);
+            this.errorValue = transition.getErrorValue().orElse(null);
+            this.failedValue = transition.getFailedValue().orElse(null);
+            this.stackless = transition.isStackless();
+        }
+        
+        private R handleFailure() {
+            if (toFailed != null) {
+                currentState.update(toFailed);
+            }
+            if (failedValue != null) {
+                return failedValue.get();
+            }
+            throw newIllegalTransition(successState, stackless);
+        }
+        
+        private R handleError(Throwable thrown) throws Error, RuntimeException {
+            if (toError != null) {
+                currentState.update(toError);
+            }
+            if (errorValue != null) {
+                return errorValue.get();
+            } else {
+                // Jacoco probe-based exception coverage blind spot
+               throw ConcurrencyException.rethrow(thrown);
+            }
+        }
+        
+        private final String event;
+        private final S successState;
+        private final StateGraph.Node<S> goal;
+        private final UnaryOperator<S> toSuccess;
+        private final UnaryOperator<S> toError;
+        private final UnaryOperator<S> toFailed;
+        private final Supplier<R> successValue;
+        private final Supplier<R> errorValue;
+        private final Supplier<R> failedValue;
+        private final boolean stackless;
+    }
+    
+    private List<Map.Entry<String, StateGraph.Node<S>>> eventsCheck(List<Map.Entry<String, S>> events) {
+        final List<Map.Entry<String, S>> validEvents = nullCheck(events, "Events must be present.");
+        final List<Map.Entry<String, StateGraph.Node<S>>> resolved = new ArrayList<>(validEvents.size());
+        for (Map.Entry<String, S> event : validEvents) {
+            final Map.Entry<String, S> validEvent = nullCheck(event, "Event must be present.");
+            final StateGraph.Node<S> goal = graph.findNode(existsCheck(validEvent.getValue()));
+            resolved.add(new AbstractMap.SimpleImmutableEntry<>(eventCheck(validEvent.getKey()), goal));
+        }
+        return resolved;
     }
     
     private S existsCheck(S state) {
@@ -143,25 +546,126 @@ final class StateMachineImpl<S> implements StateMachine<S> {
         return illegalCheck(validState, !hasState(validState), "State must be known.");
     }
     
-    private IllegalArgumentException getInitialStateNotPresentException() {
-        return new IllegalArgumentException("Initial state must be present.");
-    }
-    
     private IllegalArgumentException getEventNotPresentException() {
         return new IllegalArgumentException("Event must be present.");
     }
     
-    private void addStateAndRules(S state, List<Rule<S>> rules) {
-        final S validState = stateCheck(state);
-        final List<Rule<S>> validRules = nullCheck(rules, "Rules must be present.");
-        final Set<Rule<S>> knownRules = stateToRulesLookup(validState);
-        validRules.forEach(rule -> knownRules.add(ruleCheck(rule)));
+    private final class PendingTimeout implements Runnable, AutoClose {
+        
+        @Override
+        public void run() {
+            final StateGraph.Node<S> goal = graph.findNode(timeout.getState());
+            currentState.update(current -> pendingTimeouts.remove(this) && graph.isAllowed(graph.findNode(current), timeout.getEvent(), goal)
+                ? enter(timeout.getEvent(), goal) : current);
+        }
+        
+        @Override
+        public void close() {
+            cancel.close();
+        }
+        
+        private PendingTimeout(StateGraph.Node<S> node, Timeout<S> timeout) {
+            this.node = node;
+            this.timeout = timeout;
+        }
+        
+        private final StateGraph.Node<S> node;
+        private final Timeout<S> timeout;
+        private AutoClose cancel = AutoClose.NONE;
     }
     
-    private Set<Rule<S>> stateToRulesLookup(S state) {
-        return stateToRulesLookup.computeIfAbsent(state, k -> new HashSet<>());
+    /**
+     * Subscriptions by the identifier of the state left, then by the identifier of the state entered.
+     * Rows are created on first use and a list is removed when its last subscription closes.
+     */
+    private static final class TransitionIndex<S> {
+        
+        void dispatch(StateGraph.Node<S> from, StateGraph.Node<S> to, String event) {
+            final AtomicReferenceArray<List<NotifyValueSubscription<TransitionEvent<S>>>> row = rows.get(from.getId());
+            final List<NotifyValueSubscription<TransitionEvent<S>>> listeners = row == null ? null : row.get(to.getId());
+            if (listeners != null && !listeners.isEmpty()) {
+                final TransitionEvent<S> transitionEvent = new TransitionEventImpl<>(from.getState(), to.getState(), event, Instant.now());
+                listeners.forEach(listener -> listener.process(transitionEvent));
+            }
+        }
+        
+        synchronized AutoClose subscribe(int fromId, int toId, Predicate<TransitionEvent<S>> predicate, Consumer<TransitionEvent<S>> listener) {
+            AtomicReferenceArray<List<NotifyValueSubscription<TransitionEvent<S>>>> row = rows.get(fromId);
+            if (row == null) {
+                row = new AtomicReferenceArray<>(rows.length());
+                rows.set(fromId, row);
+            }
+            List<NotifyValueSubscription<TransitionEvent<S>>> listeners = row.get(toId);
+            if (listeners == null) {
+                listeners = new CopyOnWriteArrayList<>();
+                row.set(toId, listeners);
+            }
+            final NotifyValueSubscription<TransitionEvent<S>> subscription = new NotifyValueSubscription<>(predicate, listener, listeners);
+            subscription.open();
+            final AtomicReferenceArray<List<NotifyValueSubscription<TransitionEvent<S>>>> validRow = row;
+            final List<NotifyValueSubscription<TransitionEvent<S>>> validListeners = listeners;
+            return () -> unsubscribe(validRow, toId, validListeners, subscription);
+        }
+        
+        private synchronized void unsubscribe(AtomicReferenceArray<List<NotifyValueSubscription<TransitionEvent<S>>>> row, int toId,
+                                              List<NotifyValueSubscription<TransitionEvent<S>>> listeners,
+                                              NotifyValueSubscription<TransitionEvent<S>> subscription) {
+            subscription.close();
+            if (listeners.isEmpty()) {
+                row.compareAndSet(toId, listeners, null);
+            }
+        }
+        
+        private TransitionIndex(int size) {
+            this.rows = new AtomicReferenceArray<>(size);
+        }
+        
+        private final AtomicReferenceArray<AtomicReferenceArray<List<NotifyValueSubscription<TransitionEvent<S>>>>> rows;
+    }
+    
+    private static final class TransitionEventImpl<S> implements TransitionEvent<S> {
+        
+        @Override
+        public S getFrom() {
+            return from;
+        }
+        
+        @Override
+        public S getTo() {
+            return to;
+        }
+        
+        @Override
+        public String getEvent() {
+            return event;
+        }
+        
+        @Override
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+        
+        private TransitionEventImpl(S from, S to, String event, Instant timestamp) {
+            this.from = from;
+            this.to = to;
+            this.event = event;
+            this.timestamp = timestamp;
+        }
+        
+        private final S from;
+        private final S to;
+        private final String event;
+        private final Instant timestamp;
     }
     
-    private final HashMap<S, Set<Rule<S>>> stateToRulesLookup = new HashMap<>();
-    private final Waitable<S> currentState;
+    private static final WaitableImpl.Decider<Object, StateMachineImpl<Object>, String, StateGraph.Node<Object>, TransitionResult> CLASSIFIER =
+        StateMachineImpl::classify;
+    
+    private final StateMachineTemplateImpl<S> template;
+    private final StateGraph<S> graph;
+    private final WaitableImpl<S> currentState;
+    private final List<PendingTimeout> pendingTimeouts;
+    private volatile TransitionIndex<S> transitionIndex;
+    private volatile Mailbox mailbox;
+    private String committingEvent;
 }
@@ -0,0 +1,55 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.StateMachineJournal;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+import static java.util.Optional.ofNullable;
+
+final class StateMachineJournalConfigImpl implements StateMachineJournal.Config.Builder {
+    
+    @Override
+    public Builder directory(Path directory) {
+        this.directory = nullCheck(directory, "Directory must be present.");
+        return this;
+    }
+    
+    @Override
+    public Builder segmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+        return this;
+    }
+    
+    @Override
+    public Builder commitInterval(Duration commitInterval) {
+        this.commitInterval = nullCheck(commitInterval, "Commit interval must be present.");
+        return this;
+    }
+    
+    @Override
+    public Optional<Path> getDirectory() {
+        return ofNullable(directory);
+    }
+    
+    @Override
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+    
+    @Override
+    public Duration getCommitInterval() {
+        return commitInterval;
+    }
+    
+    StateMachineJournalConfigImpl() {
+    }
+    
+    private static final StateMachineJournal.Config DEFAULT = Optional::empty;
+    
+    private Path directory;
+    private int segmentSize = DEFAULT.getSegmentSize();
+    private Duration commitInterval = DEFAULT.getCommitInterval();
+}
@@ -0,0 +1,29 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.StateMachineJournal;
+import io.github.jonloucks.concurrency.api.StateMachineJournalFactory;
+
+import java.util.function.Consumer;
+
+import static io.github.jonloucks.contracts.api.Checks.builderConsumerCheck;
+
+final class StateMachineJournalFactoryImpl implements StateMachineJournalFactory {
+    
+    @Override
+    public StateMachineJournal create(StateMachineJournal.Config config) {
+        return new StateMachineJournalImpl(config, scheduler);
+    }
+    
+    @Override
+    public StateMachineJournal create(Consumer<StateMachineJournal.Config.Builder> builderConsumer) {
+        final StateMachineJournalConfigImpl builder = new StateMachineJournalConfigImpl();
+        builderConsumerCheck(builderConsumer).accept(builder);
+        return create(builder);
+    }
+    
+    StateMachineJournalFactoryImpl(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+    
+    private final Scheduler scheduler;
+}
@@ -0,0 +1,412 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.*;
+import io.github.jonloucks.contracts.api.AutoClose;
+import io.github.jonloucks.contracts.api.AutoOpen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.github.jonloucks.concurrency.api.Checks.stateMachineCheck;
+import static io.github.jonloucks.concurrency.impl.Internal.runWithIgnore;
+import static io.github.jonloucks.contracts.api.Checks.*;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Segment files are named by sequence and hold fixed size records, big endian:
+ * machine identifier (long), version (long), state identifier (int), and marker (int).
+ * The marker is a checksum of the record, the first record that does not match ends the segment.
+ * Only the active segment is mapped. Records are forced to storage on the executor of the Concurrency,
+ * and segments are read outside the lock taken by appends, so a StateMachine commit never waits for storage.
+ */
+final class StateMachineJournalImpl implements StateMachineJournal {
+    
+    @Override
+    public AutoClose open() {
+        return lifeCycle.open(opener);
+    }
+    
+    @Override
+    public <T> AutoClose attach(long machineId, StateMachine<T> stateMachine) {
+        final StateMachineImpl<T> validStateMachine = supportedCheck(stateMachine);
+        openCheck();
+        return validStateMachine.notifyCommit((node, version) -> append(machineId, node.getId(), version));
+    }
+    
+    @Override
+    public void flush() {
+        final List<MappedByteBuffer> forcing;
+        synchronized (lock) {
+            forcing = takeUnforced();
+        }
+        forcing.forEach(MappedByteBuffer::force);
+    }
+    
+    @Override
+    public <T> int replay(Map<Long, StateMachine<T>> stateMachines) {
+        final Map<Long, StateMachine<T>> validStateMachines = nullCheck(stateMachines, "StateMachines must be present.");
+        validStateMachines.values().forEach(StateMachineJournalImpl::supportedCheck);
+        openCheck();
+        
+        final Map<Long, Record> latest;
+        synchronized (maintenanceLock) {
+            final Path activePath;
+            final ByteBuffer active;
+            synchronized (lock) {
+                activePath = segmentPath;
+                active = segment.duplicate().flip();
+            }
+            latest = readLatest(activePath, active);
+        }
+        int restored = 0;
+        for (Map.Entry<Long, StateMachine<T>> entry : validStateMachines.entrySet()) {
+            final Record record = latest.get(entry.getKey());
+            if (record != null) {
+                supportedCheck(entry.getValue()).restoreSnapshot(record.stateId, record.version);
+                restored++;
+            }
+        }
+        return restored;
+    }
+    
+    @Override
+    public void compact() {
+        openCheck();
+        synchronized (maintenanceLock) {
+            final Path activePath;
+            final ByteBuffer active;
+            final Path compactedPath;
+            synchronized (lock) {
+                activePath = segmentPath;
+                active = segment.duplicate().flip();
+                seal();
+                compactedPath = segmentPathOf(sequence + 1);
+                startSegment(sequence + 2);
+            }
+            final Map<Long, Record> latest = readLatest(activePath, active);
+            final List<Path> oldSegments = listSegments().stream()
+                .filter(path -> path.compareTo(compactedPath) < 0)
+                .collect(Collectors.toList());
+            writeSegment(compactedPath, latest.values());
+            oldSegments.forEach(StateMachineJournalImpl::deleteSegment);
+        }
+    }
+    
+    StateMachineJournalImpl(Config config, Scheduler scheduler) {
+        final Config validConfig = configCheck(config);
+        final int validSegmentSize = validConfig.getSegmentSize();
+        final Duration validCommitInterval = nullCheck(validConfig.getCommitInterval(), "Commit interval must be present.");
+        
+        this.directory = validConfig.getDirectory().orElseThrow(StateMachineJournalImpl::getDirectoryNotPresentException);
+        this.segmentSize = illegalCheck(validSegmentSize, validSegmentSize < RECORD_SIZE, "Segment size must be at least one record.");
+        this.commitInterval = illegalCheck(validCommitInterval, validCommitInterval.isNegative(), "Commit interval must not be negative.");
+        this.scheduler = nullCheck(scheduler, "Scheduler must be present.");
+    }
+    
+    private AutoClose realOpen() {
+        synchronized (lock) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException thrown) {
+                throw new ConcurrencyException("Unable to create journal directory.", thrown);
+            }
+            final List<Path> segments = listSegments();
+            if (segments.isEmpty()) {
+                startSegment(0);
+            } else {
+                resumeSegment(segments.get(segments.size() - 1));
+            }
+            if (!commitInterval.isZero()) {
+                pendingFlush = scheduler.schedule(commitInterval, () -> scheduler.handOff(this::flushOnInterval));
+            }
+        }
+        return this::close;
+    }
+    
+    private void close() {
+        lifeCycle.close(this::realClose);
+    }
+    
+    private void realClose() {
+        final List<MappedByteBuffer> forcing;
+        synchronized (lock) {
+            pendingFlush.close();
+            forcing = takeUnforced();
+            segment = null;
+        }
+        forcing.forEach(MappedByteBuffer::force);
+    }
+    
+    private void openCheck() {
+        if (lifeCycle.getState().isRejecting()) {
+            throw new IllegalStateException("Journal must be open.");
+        }
+    }
+    
+    private void append(long machineId, int stateId, long version) {
+        synchronized (lock) {
+            if (segment == null) {
+                return; // journal closed, transitions are no longer recorded
+            }
+            write(machineId, stateId, version);
+            if (commitInterval.isZero() && pendingFlush == AutoClose.NONE) {
+                try {
+                    pendingFlush = scheduler.schedule(Duration.ZERO, () -> scheduler.handOff(this::flushOnAppend));
+                } catch (IllegalStateException thrown) {
+                    // the Concurrency is closed, the record is forced when the journal closes
+                }
+            }
+        }
+    }
+    
+    private void flushOnAppend() {
+        synchronized (lock) {
+            pendingFlush = AutoClose.NONE;
+        }
+        flush();
+    }
+    
+    private void flushOnInterval() {
+        runWithIgnore(this::flush);
+        synchronized (lock) {
+            if (segment != null) {
+                try {
+                    pendingFlush = scheduler.schedule(commitInterval, () -> scheduler.handOff(this::flushOnInterval));
+                } catch (IllegalStateException thrown) {
+                    pendingFlush = AutoClose.NONE; // the Concurrency is closed, the rest is forced when the journal closes
+                }
+            }
+        }
+    }
+    
+    private void write(long machineId, int stateId, long version) {
+        if (segment.remaining() < RECORD_SIZE) {
+            seal();
+            startSegment(sequence + 1);
+        }
+        segment.putLong(machineId).putLong(version).putInt(stateId).putInt(marker(machineId, stateId, version));
+        isDirty = true;
+    }
+    
+    /**
+     * The active segment stops receiving records, it is released once forced
+     */
+    private void seal() {
+        if (isDirty) {
+            unforced.add(segment);
+            isDirty = false;
+        }
+    }
+    
+    private List<MappedByteBuffer> takeUnforced() {
+        seal();
+        if (unforced.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<MappedByteBuffer> taken = new ArrayList<>(unforced);
+        unforced.clear();
+        return taken;
+    }
+    
+    private Path segmentPathOf(long segmentSequence) {
+        return directory.resolve(String.format(SEGMENT_FORMAT, segmentSequence));
+    }
+    
+    private void startSegment(long newSequence) {
+        final Path path = segmentPathOf(newSequence);
+        segment = map(path, segmentSize);
+        segmentPath = path;
+        sequence = newSequence;
+    }
+    
+    private void resumeSegment(Path path) {
+        final String name = path.getFileName().toString();
+        final long existingSize = sizeOf(path);
+        segment = map(path, (int) Math.max(existingSize, segmentSize));
+        segment.position(scan(segment.duplicate(), record -> {}));
+        segmentPath = path;
+        sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+    
+    /**
+     * Called without the lock, the active segment is read from the records it held when it was captured
+     *
+     * @param activePath the path of the captured active segment, only earlier segments are read from storage
+     * @param active the records of the captured active segment
+     * @return the latest record of each machine
+     */
+    private Map<Long, Record> readLatest(Path activePath, ByteBuffer active) {
+        final Map<Long, Record> latest = new HashMap<>();
+        final Consumer<Record> keep = record -> latest.put(record.machineId, record);
+        final ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        for (Path path : listSegments()) {
+            if (path.compareTo(activePath) < 0) {
+                read(path, buffer, keep);
+            }
+        }
+        scan(active, keep);
+        return latest;
+    }
+    
+    /**
+     * Write and force a segment that is never active, it sorts between the segments it replaces and the active one
+     */
+    private static void writeSegment(Path path, Collection<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        try (FileChannel channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            for (Record record : records) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    drain(buffer, channel);
+                }
+                buffer.putLong(record.machineId).putLong(record.version).putInt(record.stateId)
+                    .putInt(marker(record.machineId, record.stateId, record.version));
+            }
+            drain(buffer, channel);
+            channel.force(true);
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to write journal segment.", thrown);
+        }
+    }
+    
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    /**
+     * Scan a segment that is no longer active without mapping it
+     */
+    private static void read(Path path, ByteBuffer buffer, Consumer<Record> consumer) {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                if (scan(buffer, consumer) != buffer.position()) {
+                    return;
+                }
+                buffer.compact();
+            }
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to read journal segment.", thrown);
+        }
+    }
+    
+    private List<Path> listSegments() {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths
+                .filter(StateMachineJournalImpl::isSegment)
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to list journal segments.", thrown);
+        }
+    }
+    
+    private static int scan(ByteBuffer buffer, Consumer<Record> consumer) {
+        while (buffer.remaining() >= RECORD_SIZE) {
+            final int start = buffer.position();
+            final long machineId = buffer.getLong();
+            final long version = buffer.getLong();
+            final int stateId = buffer.getInt();
+            if (buffer.getInt() != marker(machineId, stateId, version)) {
+                return start;
+            }
+            consumer.accept(new Record(machineId, stateId, version));
+        }
+        return buffer.position();
+    }
+    
+    private static int marker(long machineId, int stateId, long version) {
+        return RECORD_MARKER ^ stateId ^ Long.hashCode(machineId) ^ Long.hashCode(version);
+    }
+    
+    private static MappedByteBuffer map(Path path, int size) {
+        try (FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to map journal segment.", thrown);
+        }
+    }
+    
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to read journal segment.", thrown);
+        }
+    }
+    
+    private static void deleteSegment(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to delete journal segment.", thrown);
+        }
+    }
+    
+    private static boolean isSegment(Path path) {
+        final String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> StateMachineImpl<T> supportedCheck(StateMachine<T> stateMachine) {
+        final StateMachine<T> validStateMachine = stateMachineCheck(stateMachine);
+        illegalCheck(validStateMachine, !(validStateMachine instanceof StateMachineImpl),
+            "StateMachine must be supported.");
+        return (StateMachineImpl<T>) validStateMachine;
+    }
+    
+    private static IllegalArgumentException getDirectoryNotPresentException() {
+        return new IllegalArgumentException("Directory must be present.");
+    }
+    
+    private static final class Record {
+        private Record(long machineId, int stateId, long version) {
+            this.machineId = machineId;
+            this.stateId = stateId;
+            this.version = version;
+        }
+        
+        private final long machineId;
+        private final int stateId;
+        private final long version;
+    }
+    
+    private static final int RECORD_SIZE = Long.BYTES * 2 + Integer.BYTES * 2;
+    private static final int RECORD_MARKER = 0x4A524E4C;
+    private static final int READ_SIZE = RECORD_SIZE * 4096;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SEGMENT_FORMAT = SEGMENT_PREFIX + "%016d" + SEGMENT_SUFFIX;
+    
+    private final Object lock = new Object();
+    private final Object maintenanceLock = new Object();
+    private final Path directory;
+    private final int segmentSize;
+    private final Duration commitInterval;
+    private final Scheduler scheduler;
+    private final IdempotentLifeCycle lifeCycle = new IdempotentLifeCycle();
+    private final AutoOpen opener = this::realOpen;
+    private final List<MappedByteBuffer> unforced = new ArrayList<>();
+    private AutoClose pendingFlush = AutoClose.NONE;
+    private MappedByteBuffer segment;
+    private Path segmentPath;
+    private long sequence;
+    private boolean isDirty;
+}
@@ -0,0 +1,134 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.ConcurrencyException;
+import io.github.jonloucks.concurrency.api.StateMachine;
+import io.github.jonloucks.concurrency.api.StateMachineSnapshot;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.jonloucks.concurrency.api.Checks.stateMachineCheck;
+import static io.github.jonloucks.contracts.api.Checks.illegalCheck;
+import static io.github.jonloucks.contracts.api.Checks.nullCheck;
+
+/**
+ * Snapshot format, big endian:
+ * header of magic (int), format version (int), count (int), and signature (int),
+ * followed by count records of state identifier (int) and version (long).
+ * The signature combines the configuration of every StateMachine in order.
+ * Every record is read and checked before any StateMachine is restored.
+ */
+final class StateMachineSnapshotImpl implements StateMachineSnapshot {
+    
+    @Override
+    public <T> void write(List<StateMachine<T>> stateMachines, WritableByteChannel channel) {
+        final List<StateMachineImpl<T>> validStateMachines = stateMachinesCheck(stateMachines);
+        final WritableByteChannel validChannel = channelCheck(channel);
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        
+        try {
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(validStateMachines.size()).putInt(signature(validStateMachines));
+            for (StateMachineImpl<T> stateMachine : validStateMachines) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    drain(buffer, validChannel);
+                }
+                stateMachine.writeSnapshot(buffer);
+            }
+            drain(buffer, validChannel);
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to write snapshot.", thrown);
+        }
+    }
+    
+    @Override
+    public <T> void restore(List<StateMachine<T>> stateMachines, ReadableByteChannel channel) {
+        final List<StateMachineImpl<T>> validStateMachines = stateMachinesCheck(stateMachines);
+        final ReadableByteChannel validChannel = channelCheck(channel);
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip(); // nothing read yet
+        
+        try {
+            fill(buffer, validChannel, HEADER_SIZE);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new ConcurrencyException("Snapshot format is not supported.");
+            }
+            if (buffer.getInt() != validStateMachines.size()) {
+                throw new ConcurrencyException("Snapshot count must match the number of StateMachines.");
+            }
+            if (buffer.getInt() != signature(validStateMachines)) {
+                throw new ConcurrencyException("Snapshot must match the configuration of the StateMachines.");
+            }
+            final List<StateGraph.Node<T>> nodes = new ArrayList<>(validStateMachines.size());
+            final long[] versions = new long[validStateMachines.size()];
+            for (int i = 0; i < versions.length; i++) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    fill(buffer, validChannel, RECORD_SIZE);
+                }
+                nodes.add(validStateMachines.get(i).snapshotCheck(buffer.getInt()));
+                versions[i] = buffer.getLong();
+            }
+            for (int i = 0; i < validStateMachines.size(); i++) {
+                validStateMachines.get(i).restoreSnapshot(nodes.get(i), versions[i]);
+            }
+        } catch (IOException thrown) {
+            throw new ConcurrencyException("Unable to restore snapshot.", thrown);
+        }
+    }
+    
+    StateMachineSnapshotImpl() {
+    }
+    
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private static void fill(ByteBuffer buffer, ReadableByteChannel channel, int minimum) throws IOException {
+        buffer.compact();
+        while (buffer.position() < minimum) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot ended early.");
+            }
+        }
+        buffer.flip();
+    }
+    
+    private static <T> int signature(List<StateMachineImpl<T>> stateMachines) {
+        int hash = 1;
+        for (StateMachineImpl<T> stateMachine : stateMachines) {
+            hash = 31 * hash + stateMachine.getSignature();
+        }
+        return hash;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> List<StateMachineImpl<T>> stateMachinesCheck(List<StateMachine<T>> stateMachines) {
+        final List<StateMachine<T>> validStateMachines = nullCheck(stateMachines, "StateMachines must be present.");
+        final List<StateMachineImpl<T>> supported = new ArrayList<>(validStateMachines.size());
+        for (StateMachine<T> stateMachine : validStateMachines) {
+            final StateMachine<T> validStateMachine = stateMachineCheck(stateMachine);
+            illegalCheck(validStateMachine, !(validStateMachine instanceof StateMachineImpl),
+                "StateMachine must be supported.");
+            supported.add((StateMachineImpl<T>) validStateMachine);
+        }
+        return supported;
+    }
+    
+    private static <C> C channelCheck(C channel) {
+        return nullCheck(channel, "Channel must be present.");
+    }
+    
+    private static final int MAGIC = 0x534D534E;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = Integer.BYTES * 4;
+    private static final int RECORD_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+}
@@ -0,0 +1,79 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Concurrency;
+import io.github.jonloucks.concurrency.api.StateMachine;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static io.github.jonloucks.contracts.api.Checks.configCheck;
+
+/**
+ * Everything a StateMachine needs that does not change, compiled once from a configuration
+ *
+ * @param <S> the type of each state
+ */
+final class StateMachineTemplateImpl<S> implements StateMachine.Template<S> {
+    
+    @Override
+    public StateMachine<S> create() {
+        return new StateMachineImpl<>(this);
+    }
+    
+    StateMachineTemplateImpl(Concurrency.Config concurrencyConfig, Scheduler scheduler, InFlight inFlight, WaitableRegistry waitables,
+                             StateMachine.Config<S> config) {
+        final StateMachine.Config<S> validConfig = configCheck(config);
+        this.concurrencyConfig = concurrencyConfig;
+        this.scheduler = scheduler;
+        this.inFlight = inFlight;
+        this.waitables = waitables;
+        this.graph = new StateGraph<>(validConfig);
+        this.executor = validConfig.getExecutor().orElseGet(ForkJoinPool::commonPool);
+        this.isSingleWriter = validConfig.isSingleWriter();
+    }
+    
+    Concurrency.Config getConcurrencyConfig() {
+        return concurrencyConfig;
+    }
+    
+    Scheduler getScheduler() {
+        return scheduler;
+    }
+    
+    InFlight getInFlight() {
+        return inFlight;
+    }
+    
+    /**
+     * @return the Waitables shut down with the Concurrency, every StateMachine registers its own
+     */
+    WaitableRegistry getWaitables() {
+        return waitables;
+    }
+    
+    StateGraph<S> getGraph() {
+        return graph;
+    }
+    
+    /**
+     * @return the executor for asynchronous requests, shared by every StateMachine
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * @return true if each StateMachine queues its asynchronous requests in its own mailbox
+     */
+    boolean isSingleWriter() {
+        return isSingleWriter;
+    }
+    
+    private final Concurrency.Config concurrencyConfig;
+    private final Scheduler scheduler;
+    private final InFlight inFlight;
+    private final WaitableRegistry waitables;
+    private final StateGraph<S> graph;
+    private final Executor executor;
+    private final boolean isSingleWriter;
+}
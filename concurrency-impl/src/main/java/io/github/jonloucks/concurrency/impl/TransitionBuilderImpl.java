@@ -65,6 +65,12 @@ final class TransitionBuilderImpl<B extends Builder<B,S,R>,S,R> implements Build
         return this;
     }
     
+    @Override
+    public TransitionBuilderImpl<B, S, R> stackless(boolean stackless) {
+        this.stackless = stackless;
+        return this;
+    }
+    
     @Override
     public String getEvent() {
         return event;
@@ -100,6 +106,11 @@ final class TransitionBuilderImpl<B extends Builder<B,S,R>,S,R> implements Build
         return ofNullable(errorValue);
     }
     
+    @Override
+    public boolean isStackless() {
+        return stackless;
+    }
+    
     TransitionBuilderImpl() {
     }
     
@@ -110,4 +121,5 @@ final class TransitionBuilderImpl<B extends Builder<B,S,R>,S,R> implements Build
     private Supplier<R> errorValue;
     private S failedState;
     private Supplier<R> failedValue;
+    private boolean stackless;
 }
@@ -9,9 +9,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import static io.github.jonloucks.concurrency.impl.Internal.*;
 import static io.github.jonloucks.contracts.api.Checks.nullCheck;
@@ -31,7 +34,7 @@ final class WaitableImpl<T> implements Waitable<T> {
     @Override
     public Optional<T> getWhen(Predicate<T> predicate, Duration timeout) {
         synchronized (simpleLock) {
-            return waitUntilSatisfied(predicate, timeout, ()->{});
+            return waitUntilSatisfied(predicate, value -> false, timeout, ()->{});
         }
     }
     
@@ -75,7 +78,7 @@ final class WaitableImpl<T> implements Waitable<T> {
         final Runnable setValue = () -> setValue(supplier.get());
         
         synchronized (simpleLock) {
-            return waitUntilSatisfied(predicate, timeout, setValue);
+            return waitUntilSatisfied(predicate, value -> false, timeout, setValue);
         }
     }
     
@@ -86,32 +89,148 @@ final class WaitableImpl<T> implements Waitable<T> {
         }
     }
 
+    /**
+     * Wait for the predicate to be satisfied, giving up early when the abandon predicate is satisfied
+     *
+     * @param predicate the predicate to wait for
+     * @param abandon true when the predicate can no longer be satisfied
+     * @param timeout the maximum time to wait
+     * @return the value if the predicate was satisfied
+     */
+    Optional<T> getWhen(Predicate<T> predicate, Predicate<T> abandon, Duration timeout) {
+        synchronized (simpleLock) {
+            return waitUntilSatisfied(predicate, abandon, timeout, ()->{});
+        }
+    }
+    
+    /**
+     * Replace the current value as a single change under the lock
+     *
+     * @param operator computes the new value from the current one
+     * @return true if the value was changed
+     */
+    boolean update(UnaryOperator<T> operator) {
+        synchronized (simpleLock) {
+            final T oldValue = reference.get();
+            final T newValue = operator.apply(oldValue);
+            setValue(newValue);
+            return oldValue != newValue;
+        }
+    }
+    
+    /**
+     * Replace the current value as a single change under the lock, reporting it instead of the change hook
+     *
+     * @param operator computes the new value from the current one
+     * @param committed receives the old and new value under the lock, even when the value is unchanged
+     * @return true if the value was changed
+     */
+    boolean update(UnaryOperator<T> operator, BiConsumer<T, T> committed) {
+        synchronized (simpleLock) {
+            final T oldValue = reference.get();
+            final T newValue = operator.apply(oldValue);
+            setValue(newValue, null);
+            committed.accept(oldValue, newValue);
+            return oldValue != newValue;
+        }
+    }
+    
+    /**
+     * Replace the current value with the goal as a single change under the lock, if the current value is accepted.
+     * The arguments are passed through so the decider does not need to capture them.
+     *
+     * @param goal the new value
+     * @param owner the object the decider decides for
+     * @param first the first argument to the decider
+     * @param second the second argument to the decider
+     * @param decider computes the outcome from the current value and the arguments
+     * @param accepted the outcome that replaces the current value
+     * @return the outcome
+     * @param <O> the type of owner
+     * @param <A> the type of the first argument
+     * @param <B> the type of the second argument
+     * @param <R> the type of outcome
+     */
+    <O, A, B, R> R updateIf(T goal, O owner, A first, B second, Decider<T, O, A, B, R> decider, R accepted) {
+        synchronized (simpleLock) {
+            final R outcome = decider.decide(reference.get(), owner, first, second);
+            if (outcome == accepted) {
+                setValue(goal);
+            }
+            return outcome;
+        }
+    }
+    
+    /**
+     * Receive the old and new value of each change under the lock, after the value listeners
+     *
+     * @param hook receives the old and new value, replaces any previous hook
+     */
+    void onChange(BiConsumer<T, T> hook) {
+        synchronized (simpleLock) {
+            changeHook = hook;
+        }
+    }
+    
+    /**
+     * Read the current value and the number of changes made to it as one consistent pair
+     *
+     * @param reader receives the current value and version
+     */
+    void read(ObjLongConsumer<T> reader) {
+        synchronized (simpleLock) {
+            reader.accept(reference.get(), version);
+        }
+    }
+    
+    /**
+     * Replace the current value and version without notifying listeners
+     *
+     * @param value the restored value
+     * @param version the restored version
+     */
+    void restore(T value, long version) {
+        synchronized (simpleLock) {
+            reference.set(value);
+            this.version = version;
+            wakeUpWaitingThreads();
+        }
+    }
+    
+    /**
+     * Computes the outcome of a conditional update from the current value, an owner and two arguments.
+     * Taking the owner as an argument lets one shared decider serve every owner.
+     *
+     * @param <T> the type of value
+     * @param <O> the type of owner
+     * @param <A> the type of the first argument
+     * @param <B> the type of the second argument
+     * @param <R> the type of outcome
+     */
+    @FunctionalInterface
+    interface Decider<T, O, A, B, R> {
+        R decide(T current, O owner, A first, B second);
+    }
+    
     WaitableImpl(T initialValue) {
         reference.set(initialValue);
     }
     
-    private Optional<T> waitUntilSatisfied(Predicate<T> predicate, Duration timeout, Runnable block) {
+    private Optional<T> waitUntilSatisfied(Predicate<T> predicate, Predicate<T> abandon, Duration timeout, Runnable block) {
         final Predicate<T> validPredicate = predicateCheck(predicate);
         final Duration validTimeout = timeoutCheck(timeout);
         
         final Instant start = Instant.now();
-        do {
+        while (true) {
             final T value = reference.get();
             if (validPredicate.test(value)) {
                 block.run();
                 return ofNullable(value);
             }
-        } while (keepWaiting(validTimeout, start));
-        
-        return Optional.empty();
-    }
-    
-    private boolean keepWaiting(Duration validTimeout, Instant start) {
-        if (shouldKeepWaiting(validTimeout, start)) {
+            if (!shouldKeepWaiting(validTimeout, start) || abandon.test(value)) {
+                return Optional.empty();
+            }
             runWithIgnore(() -> simpleLock.wait(getWaitMillis(validTimeout, start, Instant.now())));
-            return true;
-        } else {
-            return false;
         }
     }
     
@@ -120,10 +239,18 @@ final class WaitableImpl<T> implements Waitable<T> {
     }
     
     private void setValue(T newValue) {
+        setValue(newValue, changeHook);
+    }
+    
+    private void setValue(T newValue, BiConsumer<T, T> hook) {
         final T oldValue = reference.getAndSet(newValue);
         if (oldValue != newValue) {
+            version++;
             wakeUpWaitingThreads();
             notifyListeners(newValue);
+            if (hook != null) {
+                hook.accept(oldValue, newValue);
+            }
         }
     }
     
@@ -142,7 +269,9 @@ final class WaitableImpl<T> implements Waitable<T> {
     }
     
     private final Object simpleLock = new Object();
+    private BiConsumer<T, T> changeHook;
     private final AtomicReference<T> reference = new AtomicReference<>();
     private volatile boolean isShutdown = false;
+    private long version;
     private final List<NotifyValueSubscription<T>> notifyValueListeners = new CopyOnWriteArrayList<>();
 }
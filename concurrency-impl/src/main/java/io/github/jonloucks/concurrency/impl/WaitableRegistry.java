@@ -0,0 +1,64 @@
+package io.github.jonloucks.concurrency.impl;
+
+import io.github.jonloucks.concurrency.api.Waitable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Waitables created for one Concurrency, shut down when it closes.
+ * Each Waitable is held weakly so an abandoned one can be collected, registering takes no shared lock
+ * and entries of collected Waitables are removed by later registrations.
+ */
+final class WaitableRegistry {
+    
+    /**
+     * @param waitable the Waitable to shut down when the Concurrency closes
+     */
+    void register(Waitable<?> waitable) {
+        expunge();
+        entries.add(new Entry(waitable, collected));
+    }
+    
+    /**
+     * Remove every entry
+     *
+     * @return the Waitables that have not been collected
+     */
+    List<Waitable<?>> drain() {
+        final List<Waitable<?>> drained = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (entries.remove(entry)) {
+                final Waitable<?> waitable = entry.get();
+                if (waitable != null) {
+                    drained.add(waitable);
+                }
+            }
+        }
+        expunge();
+        return drained;
+    }
+    
+    WaitableRegistry() {
+    }
+    
+    private void expunge() {
+        for (Reference<?> reference = collected.poll(); reference != null; reference = collected.poll()) {
+            entries.remove(reference);
+        }
+    }
+    
+    private static final class Entry extends WeakReference<Waitable<?>> {
+        private Entry(Waitable<?> waitable, ReferenceQueue<Waitable<?>> queue) {
+            super(waitable, queue);
+        }
+    }
+    
+    private final Set<Entry> entries = ConcurrentHashMap.newKeySet();
+    private final ReferenceQueue<Waitable<?>> collected = new ReferenceQueue<>();
+}
@@ -1,5 +1,6 @@
 package io.github.jonloucks.concurrency.test;
 
+import io.github.jonloucks.concurrency.api.Cancellation;
 import io.github.jonloucks.concurrency.api.Completable;
 import io.github.jonloucks.concurrency.api.Completion;
 import io.github.jonloucks.contracts.api.AutoClose;
@@ -11,11 +12,23 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -194,6 +207,624 @@ public interface CompletableTests {
         });
     }
     
+    @Test
+    default void completable_notifyState_CompletionIsPublishedWithState() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            final List<Completion.State> states = new ArrayList<>();
+            final List<Boolean> published = new ArrayList<>();
+            try (AutoClose closeCompletable = completable.open();
+                 AutoClose closeNotify = completable.notifyState().notifyIf(s -> true, s -> {
+                     states.add(s);
+                     published.add(completable.getCompletion().isPresent());
+                 })) {
+                ignore(closeCompletable);
+                ignore(closeNotify);
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("done")));
+                
+                assertEquals(2, states.size());
+                assertEquals(PENDING, states.get(0));
+                assertEquals(SUCCEEDED, states.get(1));
+                assertFalse(published.get(0));
+                assertTrue(published.get(1));
+            }
+        });
+    }
+    
+    @Test
+    default void completable_notifyState_CompletedWhileDeliveringPending_ReceivesPendingFirst() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            final List<Completion.State> states = new CopyOnWriteArrayList<>();
+            final CountDownLatch completed = new CountDownLatch(1);
+            try (AutoClose closeCompletable = completable.open();
+                 AutoClose closeNotify = completable.notifyState().notifyIf(s -> true, s -> {
+                     if (s == PENDING) {
+                         final Thread completer = new Thread(() -> {
+                             completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("done")));
+                             completed.countDown();
+                         });
+                         completer.start();
+                         assertTrue(assertDoesNotThrow(() -> completed.await(10, TimeUnit.SECONDS)));
+                     }
+                     states.add(s);
+                 })) {
+                ignore(closeCompletable);
+                ignore(closeNotify);
+                
+                assertEquals(Arrays.asList(PENDING, SUCCEEDED), states);
+            }
+        });
+    }
+    
+    @Test
+    default void completable_notifyIf_AfterCompletion_ReceivesCurrent() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            final List<Completion.State> states = new ArrayList<>();
+            final List<String> values = new ArrayList<>();
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("done")));
+                
+                try (AutoClose closeState = completable.notifyState().notifyIf(s -> true, states::add);
+                     AutoClose closeValue = completable.notifyValue().notifyIf(v -> true, values::add)) {
+                    ignore(closeState);
+                    ignore(closeValue);
+                }
+                
+                assertEquals(1, states.size());
+                assertEquals(SUCCEEDED, states.get(0));
+                assertEquals(1, values.size());
+                assertEquals("done", values.get(0));
+            }
+        });
+    }
+    
+    @Test
+    default void completable_notifyIf_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            assertThrown(IllegalArgumentException.class,
+                () -> completable.notifyState().notifyIf(null, s -> {}),
+                "Predicate must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> completable.notifyValue().notifyIf(v -> true, null),
+                "Listener must be present.");
+        });
+    }
+    
+    @Test
+    default void completable_toCompletionStage_SharesCompletion() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                final CompletableFuture<String> future = completable.toCompletionStage().toCompletableFuture();
+                
+                assertSame(future, completable.toCompletionStage());
+                assertFalse(future.isDone());
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("done")));
+                
+                assertEquals("done", future.getNow(null));
+            }
+        });
+    }
+    
+    @Test
+    default void completable_toCompletionStage_WritesGoThroughCompletable() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                final CompletableFuture<String> future = completable.toCompletionStage().toCompletableFuture();
+                
+                assertThrows(UnsupportedOperationException.class, () -> future.obtrudeValue("obtruded"));
+                assertThrows(UnsupportedOperationException.class, () -> future.obtrudeException(new IllegalStateException()));
+                assertSame(future, future.completeAsync(() -> "async", Runnable::run));
+                
+                assertEquals("async", completable.getCompletion().get().getValue().get());
+                assertEquals("async", future.getNow(null));
+            }
+        });
+    }
+    
+    @Test
+    default void completable_toCompletionStage_MapsFailureAndCancellation() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> failed = concurrency.createCompletable(b -> {
+            });
+            final Completable<String> cancelled = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeFailed = failed.open(); AutoClose closeCancelled = cancelled.open()) {
+                ignore(closeFailed);
+                ignore(closeCancelled);
+                final IllegalStateException thrown = new IllegalStateException("Problem.");
+                failed.onCompletion(concurrency.createCompletion(b -> b.state(FAILED).thrown(thrown)));
+                final CompletableFuture<String> failedFuture = failed.toCompletionStage().toCompletableFuture();
+                
+                final ExecutionException caught = assertThrows(ExecutionException.class, failedFuture::get);
+                assertSame(thrown, caught.getCause());
+                
+                assertTrue(cancelled.toCompletionStage().toCompletableFuture().cancel(true));
+                assertEquals(CANCELLED, cancelled.getCompletion().get().getState());
+                assertTrue(cancelled.toCompletionStage().toCompletableFuture().isCancelled());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_fromFuture_MapsBothWays() {
+        withConcurrency((contracts, concurrency) -> {
+            final CompletableFuture<String> succeeded = new CompletableFuture<>();
+            final CompletableFuture<String> failed = new CompletableFuture<>();
+            final CompletableFuture<String> cancelled = new CompletableFuture<>();
+            final Completable<String> fromSucceeded = concurrency.fromFuture(succeeded);
+            final Completable<String> fromFailed = concurrency.fromFuture(failed);
+            final Completable<String> fromCancelled = concurrency.fromFuture(cancelled);
+            final IllegalStateException thrown = new IllegalStateException("Problem.");
+            
+            succeeded.complete("done");
+            failed.completeExceptionally(thrown);
+            fromCancelled.onCompletion(concurrency.createCompletion(b -> b.state(CANCELLED)));
+            
+            assertEquals(SUCCEEDED, fromSucceeded.getCompletion().get().getState());
+            assertEquals("done", fromSucceeded.getCompletion().get().getValue().get());
+            assertEquals(FAILED, fromFailed.getCompletion().get().getState());
+            assertSame(thrown, fromFailed.getCompletion().get().getThrown().get());
+            assertTrue(cancelled.isCancelled());
+        });
+    }
+    
+    @Test
+    default void completable_fromFuture_WithOwnStage_ReturnsCompletable() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            
+            assertSame(completable, concurrency.fromFuture(completable.toCompletionStage()));
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.fromFuture(null),
+                "Stage must be present.");
+        });
+    }
+    
+    @ParameterizedTest(name = "inputs = {0}")
+    @ValueSource(ints = {10, 1_000, 100_000})
+    default void completable_allOf_ManyInputs_Works(int numberOfInputs) {
+        withConcurrency((contracts, concurrency) -> {
+            final List<Completable<Integer>> inputs = new ArrayList<>(numberOfInputs);
+            for (int i = 0; i < numberOfInputs; i++) {
+                final Completable<Integer> input = concurrency.createCompletable(b -> {
+                });
+                input.open();
+                inputs.add(input);
+            }
+            final Completable<Void> all = concurrency.allOf(inputs);
+            final Completion<Integer> succeeded = concurrency.createCompletion(b -> b.state(SUCCEEDED).value(1));
+            
+            for (Completable<Integer> input : inputs) {
+                assertFalse(all.isCompleted());
+                input.onCompletion(succeeded);
+            }
+            
+            assertEquals(SUCCEEDED, all.getCompletion().get().getState());
+        });
+    }
+    
+    @Test
+    default void completable_allOf_FirstFailure_Decides() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> first = concurrency.createCompletable(b -> {
+            });
+            final Completable<String> second = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeFirst = first.open(); AutoClose closeSecond = second.open()) {
+                ignore(closeFirst);
+                ignore(closeSecond);
+                final IllegalStateException thrown = new IllegalStateException("Problem.");
+                first.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED)));
+                
+                final Completable<Void> all = concurrency.allOf(Arrays.asList(first, second));
+                second.onCompletion(concurrency.createCompletion(b -> b.state(FAILED).thrown(thrown)));
+                
+                assertEquals(FAILED, all.getCompletion().get().getState());
+                assertSame(thrown, all.getCompletion().get().getThrown().get());
+                assertTrue(concurrency.allOf(new ArrayList<Completable<String>>()).isCompleted());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_anyOf_FirstCompletion_Decides() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> first = concurrency.createCompletable(b -> {
+            });
+            final Completable<String> second = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeFirst = first.open(); AutoClose closeSecond = second.open()) {
+                ignore(closeFirst);
+                ignore(closeSecond);
+                final Completable<String> any = concurrency.anyOf(Arrays.asList(first, second));
+                assertFalse(any.isCompleted());
+                
+                second.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("second")));
+                first.onCompletion(concurrency.createCompletion(b -> b.state(FAILED)));
+                
+                assertEquals(SUCCEEDED, any.getCompletion().get().getState());
+                assertEquals("second", any.getCompletion().get().getValue().get());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_allOf_anyOf_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.allOf(null),
+                "Completables must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.anyOf(Collections.singletonList(null)),
+                "Completable must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.anyOf(new ArrayList<Completable<String>>()),
+                "Completables must not be empty.");
+        });
+    }
+    
+    @Test
+    default void completable_thenApply_Inline_RunsOnCompletingThread() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<Integer> completable = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                final List<Thread> threads = new ArrayList<>();
+                final Completable<String> dependent = completable
+                    .thenApply(value -> value + 1)
+                    .thenApply(value -> {
+                        threads.add(Thread.currentThread());
+                        return "value=" + value;
+                    });
+                assertFalse(dependent.isCompleted());
+                
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value(41)));
+                
+                assertEquals("value=42", dependent.getCompletion().get().getValue().get());
+                assertEquals(Collections.singletonList(Thread.currentThread()), threads);
+            }
+        });
+    }
+    
+    @Test
+    default void completable_thenApply_Inline_LongChain_DoesNotOverflow() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<Integer> completable = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                final int steps = 100_000;
+                Completable<Integer> dependent = completable;
+                for (int i = 0; i < steps; i++) {
+                    dependent = dependent.thenApply(value -> value + 1);
+                }
+                
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value(0)));
+                
+                assertEquals(Integer.valueOf(steps), dependent.getCompletion().get().getValue().get());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_thenApply_PassesOnFailure() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<Integer> completable = concurrency.createCompletable(b -> {
+            });
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                final IllegalStateException thrown = new IllegalStateException("Problem.");
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(FAILED).thrown(thrown)));
+                
+                final Completable<String> dependent = completable.thenApply(value -> "never");
+                final Completable<Integer> throwing = concurrency.fromFuture(CompletableFuture.completedFuture(1))
+                    .thenApply(value -> { throw thrown; });
+                
+                assertEquals(FAILED, dependent.getCompletion().get().getState());
+                assertSame(thrown, dependent.getCompletion().get().getThrown().get());
+                assertEquals(FAILED, throwing.getCompletion().get().getState());
+                assertSame(thrown, throwing.getCompletion().get().getThrown().get());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_thenCompose_WithExecutor_Works() {
+        withConcurrency((contracts, concurrency) -> {
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                final Completable<String> dependent = concurrency.fromFuture(CompletableFuture.completedFuture(2))
+                    .thenCompose(value -> concurrency.fromFuture(CompletableFuture.supplyAsync(() -> "value=" + value)), executor);
+                final CountDownLatch latch = new CountDownLatch(1);
+                dependent.whenComplete(completion -> latch.countDown());
+                
+                assertTrue(assertDoesNotThrow(() -> latch.await(10, TimeUnit.SECONDS)));
+                assertEquals("value=2", dependent.getCompletion().get().getValue().get());
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+    }
+    
+    @Test
+    default void completable_whenComplete_WithRejectingExecutor_Fails() {
+        withConcurrency((contracts, concurrency) -> {
+            final RejectedExecutionException rejected = new RejectedExecutionException("Rejected.");
+            final Completable<Integer> dependent = concurrency.fromFuture(CompletableFuture.completedFuture(2))
+                .whenComplete(completion -> {}, runnable -> { throw rejected; });
+            
+            assertEquals(FAILED, dependent.getCompletion().get().getState());
+            assertSame(rejected, dependent.getCompletion().get().getThrown().get());
+        });
+    }
+    
+    @Test
+    default void completable_continuations_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {
+            });
+            assertThrown(IllegalArgumentException.class,
+                () -> completable.thenApply(null),
+                "Function must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> completable.thenCompose(v -> completable, null),
+                "Executor must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> completable.whenComplete(null));
+        });
+    }
+    
+    @Test
+    default void completable_getCancellation_OnCancel_Works() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {});
+            final Cancellation cancellation = completable.getCancellation();
+            final AtomicInteger cancelled = new AtomicInteger();
+            final AtomicInteger removed = new AtomicInteger();
+            
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                cancellation.onCancel(cancelled::incrementAndGet);
+                cancellation.onCancel(removed::incrementAndGet).close();
+                assertFalse(cancellation.isCancelled());
+                assertDoesNotThrow(cancellation::throwIfCancelled);
+                
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(CANCELLED)));
+                
+                assertTrue(cancellation.isCancelled());
+                assertEquals(1, cancelled.get());
+                assertEquals(0, removed.get());
+                assertThrows(CancellationException.class, cancellation::throwIfCancelled);
+                cancellation.onCancel(cancelled::incrementAndGet);
+                assertEquals(2, cancelled.get());
+                assertThrown(IllegalArgumentException.class,
+                    () -> cancellation.onCancel(null),
+                    "Action must be present.");
+            }
+        });
+    }
+    
+    @Test
+    default void completable_getCancellation_NotCancelledBySuccess() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {});
+            final AtomicInteger cancelled = new AtomicInteger();
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                completable.getCancellation().onCancel(cancelled::incrementAndGet);
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("done")));
+                
+                assertFalse(completable.getCancellation().isCancelled());
+                assertEquals(0, cancelled.get());
+                assertFalse(Cancellation.NONE.isCancelled());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_completeNow_WhenCancelled_SkipsBlock() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {});
+            final AtomicInteger runs = new AtomicInteger();
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(CANCELLED)));
+                
+                assertThrows(CancellationException.class,
+                    () -> concurrency.completeNow(completable, () -> "value=" + runs.incrementAndGet()));
+                concurrency.completeLater(completable, onCompletion -> runs.incrementAndGet());
+                
+                assertEquals(0, runs.get());
+                assertEquals(CANCELLED, completable.getCompletion().get().getState());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_interruptOnCancel_InterruptsRunningWork() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> {});
+            final CountDownLatch running = new CountDownLatch(1);
+            final CountDownLatch interrupted = new CountDownLatch(1);
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                final Thread worker = new Thread(() -> {
+                    try (AutoClose closeInterrupt = Cancellation.of(completable).interruptOnCancel()) {
+                        ignore(closeInterrupt);
+                        running.countDown();
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException thrown) {
+                        interrupted.countDown();
+                    }
+                });
+                worker.start();
+                assertTrue(assertDoesNotThrow(() -> running.await(10, TimeUnit.SECONDS)));
+                
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(CANCELLED)));
+                
+                assertTrue(assertDoesNotThrow(() -> interrupted.await(10, TimeUnit.SECONDS)));
+            }
+        });
+    }
+    
+    @Test
+    default void completable_cancel_CascadesThroughContinuations() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<Integer> source = concurrency.createCompletable(b -> {});
+            final Completable<String> inner = concurrency.createCompletable(b -> {});
+            try (AutoClose closeSource = source.open(); AutoClose closeInner = inner.open()) {
+                ignore(closeSource);
+                ignore(closeInner);
+                final Completable<String> applied = source.thenApply(value -> "value=" + value);
+                final Completable<String> composed = source.thenCompose(value -> inner);
+                
+                source.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value(1)));
+                assertEquals("value=1", applied.getCompletion().get().getValue().get());
+                assertFalse(composed.isCompleted());
+                
+                composed.toCompletionStage().toCompletableFuture().cancel(false);
+                
+                assertEquals(CANCELLED, composed.getCompletion().get().getState());
+                assertTrue(inner.getCancellation().isCancelled());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_cancel_PassesToDependents() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<Integer> source = concurrency.createCompletable(b -> {});
+            final AtomicInteger runs = new AtomicInteger();
+            try (AutoClose closeSource = source.open()) {
+                ignore(closeSource);
+                final Completable<Integer> dependent = source.thenApply(value -> runs.incrementAndGet());
+                
+                source.onCompletion(concurrency.createCompletion(b -> b.state(CANCELLED)));
+                
+                assertTrue(dependent.getCancellation().isCancelled());
+                assertEquals(0, runs.get());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_timeout_WhenDeadlinePasses_Fails() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> b.timeout(Duration.ofMillis(20)));
+            final CountDownLatch latch = new CountDownLatch(1);
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                completable.notify(completion -> latch.countDown());
+                
+                assertTrue(assertDoesNotThrow(() -> latch.await(10, TimeUnit.SECONDS)));
+                final Completion<String> completion = completable.getCompletion().get();
+                assertEquals(FAILED, completion.getState());
+                assertTrue(completion.getThrown().get() instanceof TimeoutException);
+            }
+        });
+    }
+    
+    @Test
+    default void completable_timeout_SlowListener_DoesNotDelayOtherTimeouts() {
+        withConcurrency(b -> b.executionThreads(2), (contracts, concurrency) -> {
+            final Completable<String> slow = concurrency.createCompletable(b -> b.timeout(Duration.ofMillis(10)));
+            final Completable<String> other = concurrency.createCompletable(b -> b.timeout(Duration.ofMillis(20)));
+            final CountDownLatch otherExpired = new CountDownLatch(1);
+            final CountDownLatch slowExpired = new CountDownLatch(1);
+            try (AutoClose closeSlow = slow.open(); AutoClose closeOther = other.open()) {
+                ignore(closeSlow);
+                ignore(closeOther);
+                slow.notify(completion -> {
+                    if (assertDoesNotThrow(() -> otherExpired.await(10, TimeUnit.SECONDS))) {
+                        slowExpired.countDown();
+                    }
+                });
+                other.notify(completion -> otherExpired.countDown());
+                
+                assertTrue(assertDoesNotThrow(() -> slowExpired.await(10, TimeUnit.SECONDS)));
+            }
+        });
+    }
+    
+    @Test
+    default void completable_timeout_WithCancelledState_Cancels() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> b
+                .timeout(Duration.ZERO)
+                .timeoutState(CANCELLED));
+            final CountDownLatch latch = new CountDownLatch(1);
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                completable.getCancellation().onCancel(latch::countDown);
+                
+                assertTrue(assertDoesNotThrow(() -> latch.await(10, TimeUnit.SECONDS)));
+                assertTrue(completable.getCompletion().get().getThrown().get() instanceof TimeoutException);
+            }
+        });
+    }
+    
+    @Test
+    default void completable_timeout_CompletedBeforeDeadline_KeepsCompletion() {
+        withConcurrency((contracts, concurrency) -> {
+            final Completable<String> completable = concurrency.createCompletable(b -> b.timeout(Duration.ofMillis(50)));
+            try (AutoClose closeCompletable = completable.open()) {
+                ignore(closeCompletable);
+                completable.onCompletion(concurrency.createCompletion(b -> b.state(SUCCEEDED).value("done")));
+                
+                assertDoesNotThrow(() -> Thread.sleep(150));
+                assertEquals(SUCCEEDED, completable.getCompletion().get().getState());
+                assertEquals("done", completable.getCompletion().get().getValue().get());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_timeout_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.createCompletable(b -> b.timeout(null)),
+                "Timeout must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.createCompletable(b -> b.timeout(Duration.ofMillis(-1))),
+                "Timeout must not be negative.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.createCompletable(b -> b.timeoutState(null)),
+                "Timeout state must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.createCompletable(b -> b.timeoutState(SUCCEEDED)),
+                "Timeout state must be FAILED or CANCELLED.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.createCompletable(new Completable.Config<String>() {
+                    @Override
+                    public Optional<Duration> getTimeout() {
+                        return Optional.of(Duration.ofSeconds(1));
+                    }
+                    
+                    @Override
+                    public Completion.State getTimeoutState() {
+                        return PENDING;
+                    }
+                }),
+                "Timeout state must be FAILED or CANCELLED.");
+        });
+    }
+    
     @ParameterizedTest(name = "threads = {0}")
     @ValueSource(ints = {1, 3, 17, 80})
     default void completable_Stress_Threads_Works(int numberOfThreads) {
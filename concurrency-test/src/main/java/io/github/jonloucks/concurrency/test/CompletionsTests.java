@@ -1,8 +1,11 @@
 package io.github.jonloucks.concurrency.test;
 
 import io.github.jonloucks.concurrency.api.*;
+import io.github.jonloucks.contracts.api.AutoClose;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -10,15 +13,20 @@ import org.mockito.quality.Strictness;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static io.github.jonloucks.concurrency.api.Completion.State.FAILED;
 import static io.github.jonloucks.concurrency.api.Completion.State.SUCCEEDED;
+import static io.github.jonloucks.concurrency.test.Tools.measureAllocatedBytes;
 import static io.github.jonloucks.concurrency.test.Tools.withConcurrency;
 import static io.github.jonloucks.contracts.test.Tools.assertObject;
 import static io.github.jonloucks.contracts.test.Tools.assertThrown;
+import static io.github.jonloucks.contracts.test.Tools.ignore;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.isNull;
@@ -235,4 +243,141 @@ public interface CompletionsTests {
         assertFalse(completion.getFuture().isPresent());
         assertFalse(completion.getThrown().isPresent());
     }
+    
+    @ParameterizedTest(name = "state = {0}")
+    @EnumSource(Completion.State.class)
+    default void completion_create_Valueless_IsShared(Completion.State state) {
+        withConcurrency( (contracts, concurrency) -> {
+            final CompletionFactory factory = contracts.claim(CompletionFactory.CONTRACT);
+            final Completion<String> first = factory.createCompletion(b -> b.state(state));
+            final Completion<Integer> second = factory.createCompletion(b -> b.state(state));
+            
+            assertSame(first, second);
+            assertEquals(state, first.getState());
+            assertFalse(first.getThrown().isPresent());
+            assertFalse(first.getValue().isPresent());
+            assertFalse(first.getFuture().isPresent());
+        });
+    }
+    
+    @Test
+    default void completion_create_Compact_KeepsFields() {
+        withConcurrency( (contracts, concurrency) -> {
+            final CompletionFactory factory = contracts.claim(CompletionFactory.CONTRACT);
+            final Error thrown = new Error("Oh my.");
+            
+            final Completion<String> succeeded = factory.createCompletion(b -> b.state(SUCCEEDED).value("text"));
+            final Completion<String> failed = factory.createCompletion(b -> b.state(FAILED).thrown(thrown));
+            final Completion<String> both = factory.createCompletion(b -> b.state(FAILED).thrown(thrown).value("text"));
+            
+            assertEquals("text", succeeded.getValue().get());
+            assertFalse(succeeded.getThrown().isPresent());
+            assertSame(thrown, failed.getThrown().get());
+            assertFalse(failed.getValue().isPresent());
+            assertEquals(FAILED, both.getState());
+            assertSame(thrown, both.getThrown().get());
+            assertEquals("text", both.getValue().get());
+        });
+    }
+    
+    @ParameterizedTest(name = "policy = {0}")
+    @EnumSource(Concurrency.Config.ExecutionPolicy.class)
+    default void completable_completeNow_WithExecutor_Works(Concurrency.Config.ExecutionPolicy policy) {
+        withConcurrency(b -> b.executionPolicy(policy), (contracts, concurrency) -> {
+            final Completable<String> now = concurrency.createCompletable(b -> {});
+            final Completable<String> later = concurrency.createCompletable(b -> {});
+            final CountDownLatch latch = new CountDownLatch(2);
+            try (AutoClose closeNow = now.open(); AutoClose closeLater = later.open()) {
+                ignore(closeNow);
+                ignore(closeLater);
+                now.notify(completion -> latch.countDown());
+                later.notify(completion -> latch.countDown());
+                
+                concurrency.completeNow(now, () -> Thread.currentThread().getName(), concurrency.getExecutor());
+                concurrency.completeLater(later, onCompletion -> onCompletion.onCompletion(
+                    concurrency.createCompletion(b -> b.state(SUCCEEDED).value("later"))), concurrency.getExecutor());
+                
+                assertTrue(assertDoesNotThrow(() -> latch.await(10, TimeUnit.SECONDS)));
+                assertEquals(SUCCEEDED, now.getCompletion().get().getState());
+                assertNotEquals(Thread.currentThread().getName(), now.getCompletion().get().getValue().get());
+                assertEquals("later", later.getCompletion().get().getValue().get());
+            }
+        });
+    }
+    
+    @Test
+    default void completable_completeLater_WithRejectingExecutor_Fails() {
+        withConcurrency((contracts, concurrency) -> {
+            final RejectedExecutionException rejected = new RejectedExecutionException("Rejected.");
+            final List<Completion<String>> completions = new ArrayList<>();
+            
+            concurrency.<String>completeLater(completions::add, onCompletion -> {}, runnable -> { throw rejected; });
+            concurrency.completeNow(completions::add, () -> "value", runnable -> { throw rejected; });
+            
+            assertEquals(2, completions.size());
+            completions.forEach(completion -> {
+                assertEquals(FAILED, completion.getState());
+                assertSame(rejected, completion.getThrown().get());
+            });
+        });
+    }
+    
+    @Test
+    default void completable_completeNow_WhenQueueIsFull_Fails() {
+        withConcurrency(b -> b.executionThreads(1).executionQueueSize(1), (contracts, concurrency) -> {
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch started = new CountDownLatch(1);
+            final List<Completion<String>> completions = new ArrayList<>();
+            try {
+                concurrency.getExecutor().execute(() -> {
+                    started.countDown();
+                    assertDoesNotThrow(() -> release.await(10, TimeUnit.SECONDS));
+                });
+                assertTrue(assertDoesNotThrow(() -> started.await(10, TimeUnit.SECONDS)));
+                concurrency.getExecutor().execute(() -> {});
+                
+                concurrency.completeNow(completions::add, () -> "value", concurrency.getExecutor());
+                
+                assertEquals(1, completions.size());
+                assertEquals(FAILED, completions.get(0).getState());
+                assertTrue(completions.get(0).getThrown().get() instanceof RejectedExecutionException);
+            } finally {
+                release.countDown();
+            }
+        });
+    }
+    
+    @Test
+    default void completable_completeLater_WithExecutorInvalid_Throws(@Mock OnCompletion<String> onCompletion) {
+        withConcurrency((contracts, concurrency) -> {
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.completeLater(onCompletion, c -> {}, null),
+                "Executor must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.completeLater(onCompletion, null, Runnable::run),
+                "Delegate must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.completeNow(onCompletion, () -> "value", null),
+                "Executor must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> concurrency.completeNow(onCompletion, null, Runnable::run));
+            verify(onCompletion, times(0)).onCompletion(any());
+        });
+    }
+    
+    @Test
+    default void completable_completeNow_WhenSucceeding_DoesNotAllocate() {
+        withConcurrency((contracts, concurrency) -> {
+            final OnCompletion<String> onCompletion = completion -> {};
+            final Supplier<String> emptyBlock = () -> null;
+            final Supplier<String> valueBlock = () -> "value";
+            final int calls = 100_000;
+            
+            final long emptyBytes = measureAllocatedBytes(calls, () -> concurrency.completeNow(onCompletion, emptyBlock));
+            final long valueBytes = measureAllocatedBytes(calls, () -> concurrency.completeNow(onCompletion, valueBlock));
+            
+            assertTrue(emptyBytes < calls, "Without a value " + emptyBytes + " bytes for " + calls + " calls.");
+            assertTrue(valueBytes < calls * 32L, "With a value " + valueBytes + " bytes for " + calls + " calls.");
+        });
+    }
 }
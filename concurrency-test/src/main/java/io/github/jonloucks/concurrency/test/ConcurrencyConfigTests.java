@@ -1,6 +1,7 @@
 package io.github.jonloucks.concurrency.test;
 
 import io.github.jonloucks.concurrency.api.Concurrency.Config.Builder;
+import io.github.jonloucks.concurrency.api.Concurrency.Config.ExecutionPolicy;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
@@ -8,6 +9,7 @@ import java.util.function.Function;
 
 import static io.github.jonloucks.concurrency.api.Concurrency.Config.DEFAULT;
 import static io.github.jonloucks.concurrency.test.Tools.withConcurrency;
+import static io.github.jonloucks.contracts.test.Tools.assertThrown;
 import static org.junit.jupiter.api.Assertions.*;
 
 public interface ConcurrencyConfigTests {
@@ -23,6 +25,9 @@ public interface ConcurrencyConfigTests {
             assertEquals(DEFAULT.serviceLoaderClass(), builder.serviceLoaderClass());
             assertEquals(DEFAULT.reflectionClassName(), builder.reflectionClassName());
             assertEquals(DEFAULT.shutdownTimeout(), builder.shutdownTimeout());
+            assertEquals(DEFAULT.executionPolicy(), builder.executionPolicy());
+            assertEquals(DEFAULT.executionThreads(), builder.executionThreads());
+            assertEquals(DEFAULT.executionQueueSize(), builder.executionQueueSize());
         });
     }
     
@@ -42,6 +47,9 @@ public interface ConcurrencyConfigTests {
             assertBuilder.apply(builder.serviceLoaderClass(BadConcurrencyFactory.class));
             assertBuilder.apply(builder.reflectionClassName("MyReflectionClassName"));
             assertBuilder.apply(builder.shutdownTimeout(DEFAULT.shutdownTimeout().plus(Duration.ofSeconds(1))));
+            assertBuilder.apply(builder.executionPolicy(ExecutionPolicy.FORK_JOIN));
+            assertBuilder.apply(builder.executionThreads(3));
+            assertBuilder.apply(builder.executionQueueSize(7));
             
             assertEquals(!DEFAULT.useReflection(), builder.useReflection());
             assertEquals(!DEFAULT.useServiceLoader(), builder.useServiceLoader());
@@ -49,6 +57,26 @@ public interface ConcurrencyConfigTests {
             assertEquals(BadConcurrencyFactory.class, builder.serviceLoaderClass());
             assertEquals("MyReflectionClassName", builder.reflectionClassName());
             assertEquals(DEFAULT.shutdownTimeout().plus(Duration.ofSeconds(1)), builder.shutdownTimeout());
+            assertEquals(ExecutionPolicy.FORK_JOIN, builder.executionPolicy());
+            assertEquals(3, builder.executionThreads());
+            assertEquals(7, builder.executionQueueSize());
+        });
+    }
+    
+    @Test
+    default void concurrencyConfig_Execution_WithInvalid_Throws() {
+        withConcurrency( (contracts,concurrency)-> {
+            final Builder builder = contracts.claim(Builder.FACTORY).get();
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> builder.executionPolicy(null),
+                "Execution policy must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> builder.executionThreads(0),
+                "Execution threads must be positive.");
+            assertThrown(IllegalArgumentException.class,
+                () -> builder.executionQueueSize(0),
+                "Execution queue size must be positive.");
         });
     }
 }
@@ -1,18 +1,33 @@
 package io.github.jonloucks.concurrency.test;
 
+import io.github.jonloucks.concurrency.api.Completable;
+import io.github.jonloucks.concurrency.api.Concurrency;
+import io.github.jonloucks.concurrency.api.Concurrency.ShutdownReport;
 import io.github.jonloucks.concurrency.api.StateMachine;
+import io.github.jonloucks.concurrency.api.StateMachineFactory;
 import io.github.jonloucks.concurrency.api.Waitable;
+import io.github.jonloucks.contracts.api.AutoClose;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
+import static io.github.jonloucks.concurrency.test.Tools.getConcurrencyFactory;
+import static io.github.jonloucks.concurrency.test.Tools.measureAllocatedBytes;
 import static io.github.jonloucks.concurrency.test.Tools.withConcurrency;
 import static io.github.jonloucks.contracts.test.Tools.assertObject;
 import static io.github.jonloucks.contracts.test.Tools.assertThrown;
+import static io.github.jonloucks.contracts.test.Tools.withContracts;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SuppressWarnings("CodeBlock2Expr")
@@ -102,4 +117,148 @@ public interface ConcurrencyTests {
             assertEquals(Thread.State.RUNNABLE, stateMachine.getState());
         });
     }
+    
+    @Test
+    default void concurrency_getShutdownReport_BeforeClose_IsEmpty() {
+        withConcurrency((contracts, concurrency) -> {
+            assertFalse(concurrency.getShutdownReport().isPresent());
+        });
+    }
+    
+    @Test
+    default void concurrency_openAndClose_AreIdempotent() {
+        withContracts(contracts -> {
+            final Concurrency concurrency = getConcurrencyFactory().create(b -> b.contracts(contracts));
+            final AutoClose closeConcurrency = concurrency.open();
+            
+            assertSame(AutoClose.NONE, concurrency.open());
+            closeConcurrency.close();
+            final ShutdownReport report = concurrency.getShutdownReport().get();
+            closeConcurrency.close();
+            
+            assertSame(report, concurrency.getShutdownReport().get());
+            assertSame(AutoClose.NONE, concurrency.open());
+        });
+    }
+    
+    @Test
+    default void concurrency_open_WhenOpen_DoesNotAllocate() {
+        withConcurrency((contracts, concurrency) -> {
+            final int calls = 100_000;
+            
+            final long bytes = measureAllocatedBytes(calls, concurrency::open);
+            
+            assertTrue(bytes < calls, bytes + " bytes for " + calls + " calls.");
+        });
+    }
+    
+    @Test
+    default void concurrency_close_DrainsInFlightWork() {
+        withContracts(contracts -> {
+            final Concurrency concurrency = getConcurrencyFactory().create(b -> b
+                .contracts(contracts)
+                .shutdownTimeout(Duration.ofSeconds(10)));
+            final AutoClose closeConcurrency = concurrency.open();
+            final Completable<String> completable = concurrency.createCompletable(b -> {});
+            final AutoClose closeCompletable = completable.open();
+            concurrency.completeNow(completable, () -> {
+                assertDoesNotThrow(() -> Thread.sleep(100));
+                return "drained";
+            }, concurrency.getExecutor());
+            
+            closeConcurrency.close();
+            
+            assertEquals("drained", completable.getCompletion().get().getValue().get());
+            final ShutdownReport report = concurrency.getShutdownReport().get();
+            assertTrue(report.isDrained());
+            assertTrue(report.getDuration(ShutdownReport.Phase.DRAIN).toMillis() > 0);
+            for (ShutdownReport.Phase phase : ShutdownReport.Phase.values()) {
+                assertNotNull(report.getDuration(phase));
+            }
+            assertThrows(RejectedExecutionException.class, () -> concurrency.getExecutor().execute(() -> {}));
+            closeCompletable.close();
+        });
+    }
+    
+    @Test
+    default void concurrency_close_DrainsAdaptedAndDerivedCompletables() {
+        withContracts(contracts -> {
+            final Concurrency concurrency = getConcurrencyFactory().create(b -> b
+                .contracts(contracts)
+                .shutdownTimeout(Duration.ofSeconds(10)));
+            final AutoClose closeConcurrency = concurrency.open();
+            final CompletableFuture<String> future = new CompletableFuture<>();
+            final Completable<String> adapted = concurrency.fromFuture(future);
+            final Completable<Integer> derived = adapted.thenApply(String::length);
+            final Completable<Void> combined = concurrency.allOf(Collections.singletonList(derived));
+            final Thread completer = new Thread(() -> {
+                assertDoesNotThrow(() -> Thread.sleep(100));
+                future.complete("drained");
+            });
+            completer.start();
+            
+            closeConcurrency.close();
+            
+            assertTrue(concurrency.getShutdownReport().get().isDrained());
+            assertTrue(adapted.isCompleted());
+            assertEquals(Integer.valueOf(7), derived.getCompletion().get().getValue().get());
+            assertTrue(combined.isCompleted());
+        });
+    }
+    
+    @Test
+    default void concurrency_close_WhenTimedOut_ReleasesWaiters() {
+        withContracts(contracts -> {
+            final Concurrency concurrency = getConcurrencyFactory().create(b -> b
+                .contracts(contracts)
+                .shutdownTimeout(Duration.ofMillis(50)));
+            final AutoClose closeConcurrency = concurrency.open();
+            final Completable<String> completable = concurrency.createCompletable(b -> {});
+            final AutoClose closeCompletable = completable.open();
+            final Waitable<String> waitable = concurrency.createWaitable("waiting");
+            final StateMachine<String> stateMachine = concurrency.createStateMachine("waiting");
+            final StateMachine<String> templated = contracts.claim(StateMachineFactory.CONTRACT)
+                .<String>createTemplate(b -> b.initial("waiting")).create();
+            final CountDownLatch released = new CountDownLatch(3);
+            final Thread waiter = new Thread(() -> {
+                waitable.getWhen("never"::equals, Duration.ofMinutes(1));
+                released.countDown();
+            });
+            final Thread stateWaiter = new Thread(() -> {
+                stateMachine.getWhen("never"::equals, Duration.ofMinutes(1));
+                released.countDown();
+            });
+            final Thread templatedWaiter = new Thread(() -> {
+                templated.getWhen("never"::equals, Duration.ofMinutes(1));
+                released.countDown();
+            });
+            waiter.start();
+            stateWaiter.start();
+            templatedWaiter.start();
+            
+            closeConcurrency.close();
+            
+            assertTrue(assertDoesNotThrow(() -> released.await(10, TimeUnit.SECONDS)));
+            assertFalse(completable.isCompleted());
+            assertFalse(concurrency.getShutdownReport().get().isDrained());
+            closeCompletable.close();
+        });
+    }
+    
+    @Test
+    default void concurrency_close_ThenTimeoutOpened_TimesOutImmediately() {
+        withContracts(contracts -> {
+            final Concurrency concurrency = getConcurrencyFactory().create(b -> b.contracts(contracts));
+            final AutoClose closeConcurrency = concurrency.open();
+            final Completable<String> completable = concurrency.createCompletable(b -> b.timeout(Duration.ofMinutes(1)));
+            
+            closeConcurrency.close();
+            
+            try (AutoClose closeCompletable = completable.open()) {
+                assertObject(closeCompletable);
+                assertTrue(completable.isCompleted());
+                assertTrue(completable.getCompletion().get().getThrown().get() instanceof TimeoutException);
+            }
+        });
+    }
 }
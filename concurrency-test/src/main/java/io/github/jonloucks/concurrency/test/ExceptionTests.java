@@ -79,4 +79,23 @@ public interface ExceptionTests {
         
         assertThrown(exception, cause, "Abc.");
     }
+    
+    @Test
+    default void exception_ConcurrencyException_Stackless_Works() {
+        final ConcurrencyException exception = ConcurrencyException.stackless("Abc.");
+        exception.addSuppressed(new RuntimeException("Ignored."));
+        
+        assertThrown(exception, "Abc.");
+        assertEquals(0, exception.getStackTrace().length);
+        assertEquals(0, exception.getSuppressed().length);
+    }
+    
+    @Test
+    default void exception_ConcurrencyException_Stackless_WithNullMessage_Throws() {
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            ConcurrencyException.stackless(null);
+        });
+        
+        assertThrown(thrown);
+    }
 }
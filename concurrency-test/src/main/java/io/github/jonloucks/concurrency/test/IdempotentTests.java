@@ -47,6 +47,13 @@ public interface IdempotentTests {
         assertTrue(DESTROYED.isRejecting());
     }
     
+    @Test
+    default void idempotent_isPure() {
+        for (Idempotent idempotent : Idempotent.values()) {
+            assertTrue(idempotent.isPure());
+        }
+    }
+    
     @Test
     default void idempotent_createStateMachine_WithNullContracts_Throws() {
         assertThrown(IllegalArgumentException.class,
@@ -54,6 +61,46 @@ public interface IdempotentTests {
             "Contracts must be present.");
     }
     
+    @Test
+    default void idempotent_prepareOpenAndClose_AreIdempotent() {
+        withConcurrencyInstalled(contracts -> {
+            final StateMachine<Idempotent> stateMachine = Idempotent.createStateMachine(contracts);
+            final int[] opens = {0};
+            final int[] closes = {0};
+            final AutoClose opened = () -> {};
+            final StateMachine.PreparedTransition<AutoClose> open = Idempotent.prepareOpen(stateMachine, () -> {
+                opens[0]++;
+                return opened;
+            });
+            final StateMachine.PreparedTransition<Void> close = Idempotent.prepareClose(stateMachine, () -> closes[0]++);
+            
+            assertSame(opened, open.execute());
+            assertSame(AutoClose.NONE, open.execute());
+            close.execute();
+            close.execute();
+            
+            assertEquals(1, opens[0]);
+            assertEquals(1, closes[0]);
+            assertEquals(CLOSED, stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void idempotent_prepareOpenAndClose_WithInvalid_Throws() {
+        withConcurrencyInstalled(contracts -> {
+            final StateMachine<Idempotent> stateMachine = Idempotent.createStateMachine(contracts);
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> Idempotent.prepareOpen(stateMachine, null),
+                "Open must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> Idempotent.prepareClose(stateMachine, null),
+                "Close must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> Idempotent.prepareOpen(null, () -> AutoClose.NONE));
+        });
+    }
+    
     @Test
     default void idempotent_transition_WithIllegalTransition_Throws() {
         withConcurrencyInstalled(contracts -> {
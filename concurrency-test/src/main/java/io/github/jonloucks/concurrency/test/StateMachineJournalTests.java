@@ -0,0 +1,176 @@
+package io.github.jonloucks.concurrency.test;
+
+import io.github.jonloucks.concurrency.api.StateMachine;
+import io.github.jonloucks.concurrency.api.StateMachineFactory;
+import io.github.jonloucks.concurrency.api.StateMachineJournal;
+import io.github.jonloucks.concurrency.api.StateMachineJournalFactory;
+import io.github.jonloucks.contracts.api.AutoClose;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static io.github.jonloucks.concurrency.test.StateMachineJournalTests.StateMachineJournalTestsTools.countSegments;
+import static io.github.jonloucks.concurrency.test.StateMachineJournalTests.StateMachineJournalTestsTools.withDirectory;
+import static io.github.jonloucks.concurrency.test.Tools.assumeStateMachineFactory;
+import static io.github.jonloucks.concurrency.test.Tools.withConcurrency;
+import static io.github.jonloucks.contracts.test.Tools.assertThrown;
+import static io.github.jonloucks.contracts.test.Tools.ignore;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("CodeBlock2Expr")
+public interface StateMachineJournalTests {
+    
+    @Test
+    default void stateMachineJournal_Exists() {
+        withConcurrency((contracts, concurrency) -> {
+            assertTrue(contracts.isBound(StateMachineJournalFactory.CONTRACT), "StateMachineJournalFactory is required.");
+        });
+    }
+    
+    @Test
+    default void stateMachineJournal_create_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineJournalFactory factory = contracts.claim(StateMachineJournalFactory.CONTRACT);
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create((StateMachineJournal.Config) null),
+                "Config must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> {}),
+                "Directory must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.directory(Paths.get("journal")).segmentSize(1)),
+                "Segment size must be at least one record.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.directory(Paths.get("journal")).commitInterval(Duration.ofMillis(-1))),
+                "Commit interval must not be negative.");
+        });
+    }
+    
+    @Test
+    default void stateMachineJournal_NotOpen_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineJournalFactory factory = contracts.claim(StateMachineJournalFactory.CONTRACT);
+            final StateMachineJournal journal = factory.create(b -> b.directory(Paths.get("journal")));
+            final StateMachine<String> stateMachine = concurrency.createStateMachine("initial");
+            
+            assertThrown(IllegalStateException.class,
+                () -> journal.attach(1, stateMachine),
+                "Journal must be open.");
+            assertThrown(IllegalStateException.class,
+                journal::compact,
+                "Journal must be open.");
+        });
+    }
+    
+    @Test
+    default void stateMachineJournal_replay_RestoresLastState() {
+        withDirectory(directory -> withConcurrency((contracts, concurrency) -> {
+            final StateMachineJournalFactory factory = contracts.claim(StateMachineJournalFactory.CONTRACT);
+            final StateMachineFactory stateMachineFactory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> first = stateMachineFactory.create(Thread.State.class, Thread.State.NEW);
+            final StateMachine<Thread.State> second = stateMachineFactory.create(Thread.State.class, Thread.State.NEW);
+            
+            final StateMachineJournal journal = factory.create(b -> b.directory(directory).segmentSize(24 * 4));
+            try (AutoClose closeJournal = journal.open()) {
+                ignore(closeJournal);
+                journal.attach(1, first);
+                journal.attach(2, second);
+                first.setState("run", Thread.State.RUNNABLE);
+                first.setState("wait", Thread.State.WAITING);
+                second.setState("block", Thread.State.BLOCKED);
+                first.setState("end", Thread.State.TERMINATED);
+            }
+            assertTrue(countSegments(directory) > 1, "Segments should have rolled over.");
+            
+            final Map<Long, StateMachine<Thread.State>> restored = new HashMap<>();
+            restored.put(1L, stateMachineFactory.create(Thread.State.class, Thread.State.NEW));
+            restored.put(2L, stateMachineFactory.create(Thread.State.class, Thread.State.NEW));
+            restored.put(3L, stateMachineFactory.create(Thread.State.class, Thread.State.NEW));
+            final StateMachineJournal reopened = factory.create(b -> b.directory(directory).segmentSize(24 * 4));
+            try (AutoClose closeJournal = reopened.open()) {
+                ignore(closeJournal);
+                assertEquals(2, reopened.replay(restored));
+                
+                reopened.compact();
+                assertEquals(2, countSegments(directory), "The compacted segment and the active segment should remain.");
+                assertEquals(2, reopened.replay(restored));
+                reopened.compact();
+                assertEquals(2, countSegments(directory), "The compacted segment and the active segment should remain.");
+                assertEquals(2, reopened.replay(restored));
+            }
+            
+            assertEquals(Thread.State.TERMINATED, restored.get(1L).getState());
+            assertEquals(Thread.State.BLOCKED, restored.get(2L).getState());
+            assertEquals(Thread.State.NEW, restored.get(3L).getState());
+        }));
+    }
+    
+    @Test
+    default void stateMachineJournal_attach_AfterClose_StopsJournaling() {
+        withDirectory(directory -> withConcurrency((contracts, concurrency) -> {
+            final StateMachineJournalFactory factory = contracts.claim(StateMachineJournalFactory.CONTRACT);
+            final StateMachine<Thread.State> stateMachine = concurrency.createStateMachine(Thread.State.class, Thread.State.NEW);
+            final StateMachineJournal journal = factory.create(b -> b.directory(directory).commitInterval(Duration.ZERO));
+            
+            try (AutoClose closeJournal = journal.open()) {
+                ignore(closeJournal);
+                try (AutoClose closeAttach = journal.attach(7, stateMachine)) {
+                    ignore(closeAttach);
+                    stateMachine.setState("run", Thread.State.RUNNABLE);
+                }
+                stateMachine.setState("end", Thread.State.TERMINATED);
+                journal.flush();
+            }
+            
+            final Map<Long, StateMachine<Thread.State>> restored = new HashMap<>();
+            restored.put(7L, concurrency.createStateMachine(Thread.State.class, Thread.State.NEW));
+            final StateMachineJournal reopened = factory.create(b -> b.directory(directory));
+            try (AutoClose closeJournal = reopened.open()) {
+                ignore(closeJournal);
+                assertEquals(1, reopened.replay(restored));
+            }
+            assertEquals(Thread.State.RUNNABLE, restored.get(7L).getState());
+        }));
+    }
+    
+    final class StateMachineJournalTestsTools {
+        private StateMachineJournalTestsTools() {
+            throw new AssertionError("Illegal constructor.");
+        }
+        
+        static void withDirectory(Consumer<Path> block) {
+            final Path directory = assertDoesNotThrow(() -> Files.createTempDirectory("journal"));
+            try {
+                block.accept(directory);
+            } finally {
+                assertDoesNotThrow(() -> delete(directory));
+            }
+        }
+        
+        static long countSegments(Path directory) {
+            return assertDoesNotThrow(() -> {
+                try (Stream<Path> paths = Files.list(directory)) {
+                    return paths.count();
+                }
+            });
+        }
+        
+        private static void delete(Path directory) throws IOException {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.jonloucks.concurrency.test;
+
+import io.github.jonloucks.concurrency.api.ConcurrencyException;
+import io.github.jonloucks.concurrency.api.StateMachine;
+import io.github.jonloucks.concurrency.api.StateMachineFactory;
+import io.github.jonloucks.concurrency.api.StateMachineSnapshot;
+import io.github.jonloucks.contracts.api.AutoClose;
+import io.github.jonloucks.contracts.api.Contracts;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.jonloucks.concurrency.test.StateMachineSnapshotTests.StateMachineSnapshotTestsTools.createEnumMachines;
+import static io.github.jonloucks.concurrency.test.Tools.assumeStateMachineFactory;
+import static io.github.jonloucks.concurrency.test.Tools.withConcurrency;
+import static io.github.jonloucks.contracts.test.Tools.assertThrown;
+import static io.github.jonloucks.contracts.test.Tools.ignore;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("CodeBlock2Expr")
+public interface StateMachineSnapshotTests {
+    
+    @Test
+    default void stateMachineSnapshot_Exists() {
+        withConcurrency((contracts, concurrency) -> {
+            assertTrue(contracts.isBound(StateMachineSnapshot.CONTRACT), "StateMachineSnapshot is required.");
+        });
+    }
+    
+    @Test
+    default void stateMachineSnapshot_WithEnum_Restores() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineSnapshot snapshot = contracts.claim(StateMachineSnapshot.CONTRACT);
+            final List<StateMachine<Thread.State>> written = createEnumMachines(contracts, 100);
+            for (int i = 0; i < written.size(); i++) {
+                written.get(i).setState("run", Thread.State.RUNNABLE);
+                if (i % 3 == 0) {
+                    written.get(i).setState("end", Thread.State.TERMINATED);
+                }
+            }
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            snapshot.write(written, Channels.newChannel(output));
+            
+            final List<StateMachine<Thread.State>> restored = createEnumMachines(contracts, 100);
+            final List<Thread.State> notified = new ArrayList<>();
+            try (AutoClose closeNotify = restored.get(0).notifyIf(s -> s != Thread.State.NEW, notified::add)) {
+                ignore(closeNotify);
+                snapshot.restore(restored, Channels.newChannel(new ByteArrayInputStream(output.toByteArray())));
+            }
+            
+            assertEquals(16 + 100 * 12, output.size());
+            assertTrue(notified.isEmpty(), "Listeners must not be notified.");
+            for (int i = 0; i < written.size(); i++) {
+                assertEquals(written.get(i).getState(), restored.get(i).getState());
+            }
+        });
+    }
+    
+    @Test
+    default void stateMachineSnapshot_WithRegisteredStates_Restores() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineSnapshot snapshot = contracts.claim(StateMachineSnapshot.CONTRACT);
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> written = factory.create(b -> b.initial("a").states(Arrays.asList("b", "c")));
+            written.setState("go", "c");
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            snapshot.write(singletonList(written), Channels.newChannel(output));
+            
+            final StateMachine<String> restored = factory.create(b -> b.initial("a").states(Arrays.asList("b", "c")));
+            snapshot.restore(singletonList(restored), Channels.newChannel(new ByteArrayInputStream(output.toByteArray())));
+            
+            assertEquals("c", restored.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachineSnapshot_WithMismatch_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineSnapshot snapshot = contracts.claim(StateMachineSnapshot.CONTRACT);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            snapshot.write(createEnumMachines(contracts, 2), Channels.newChannel(output));
+            final byte[] bytes = output.toByteArray();
+            
+            assertThrown(ConcurrencyException.class,
+                () -> snapshot.restore(createEnumMachines(contracts, 3), Channels.newChannel(new ByteArrayInputStream(bytes))),
+                "Snapshot count must match the number of StateMachines.");
+            assertThrown(ConcurrencyException.class,
+                () -> snapshot.restore(createEnumMachines(contracts, 2), Channels.newChannel(new ByteArrayInputStream(new byte[16]))),
+                "Snapshot format is not supported.");
+            assertThrown(ConcurrencyException.class,
+                () -> snapshot.restore(createEnumMachines(contracts, 2), Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(bytes, 20)))),
+                "Unable to restore snapshot.");
+        });
+    }
+    
+    @Test
+    default void stateMachineSnapshot_WithDifferentConfiguration_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineSnapshot snapshot = contracts.claim(StateMachineSnapshot.CONTRACT);
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> written = factory.create(b -> b.initial("a").states(Arrays.asList("b", "c")));
+            written.setState("go", "b");
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            snapshot.write(singletonList(written), Channels.newChannel(output));
+            
+            final StateMachine<String> restored = factory.create(b -> b.initial("a").states(Arrays.asList("c", "b")));
+            assertThrown(ConcurrencyException.class,
+                () -> snapshot.restore(singletonList(restored), Channels.newChannel(new ByteArrayInputStream(output.toByteArray()))),
+                "Snapshot must match the configuration of the StateMachines.");
+            
+            assertEquals("a", restored.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachineSnapshot_WithUnknownState_RestoresNothing() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineSnapshot snapshot = contracts.claim(StateMachineSnapshot.CONTRACT);
+            final List<StateMachine<Thread.State>> written = createEnumMachines(contracts, 2);
+            written.forEach(stateMachine -> stateMachine.setState("run", Thread.State.RUNNABLE));
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            snapshot.write(written, Channels.newChannel(output));
+            final byte[] bytes = output.toByteArray();
+            bytes[16 + 12] = 0x7F; // second state identifier
+            
+            final List<StateMachine<Thread.State>> restored = createEnumMachines(contracts, 2);
+            assertThrown(ConcurrencyException.class,
+                () -> snapshot.restore(restored, Channels.newChannel(new ByteArrayInputStream(bytes))),
+                "Snapshot state must be known.");
+            
+            assertEquals(Thread.State.NEW, restored.get(0).getState());
+            assertEquals(Thread.State.NEW, restored.get(1).getState());
+        });
+    }
+    
+    @Test
+    default void stateMachineSnapshot_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineSnapshot snapshot = contracts.claim(StateMachineSnapshot.CONTRACT);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> snapshot.write(null, Channels.newChannel(output)),
+                "StateMachines must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> snapshot.write(singletonList(null), Channels.newChannel(output)),
+                "StateMachine must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> snapshot.write(createEnumMachines(contracts, 1), null),
+                "Channel must be present.");
+        });
+    }
+    
+    final class StateMachineSnapshotTestsTools {
+        private StateMachineSnapshotTestsTools() {
+            throw new AssertionError("Illegal constructor.");
+        }
+        
+        static List<StateMachine<Thread.State>> createEnumMachines(Contracts contracts, int count) {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final List<StateMachine<Thread.State>> stateMachines = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                stateMachines.add(factory.create(Thread.State.class, Thread.State.NEW));
+            }
+            return stateMachines;
+        }
+    }
+}
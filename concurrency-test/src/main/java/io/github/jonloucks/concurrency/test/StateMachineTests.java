@@ -1,7 +1,12 @@
 package io.github.jonloucks.concurrency.test;
 
+import io.github.jonloucks.concurrency.api.Completable;
+import io.github.jonloucks.concurrency.api.Completion;
+import io.github.jonloucks.concurrency.api.ConcurrencyException;
+import io.github.jonloucks.concurrency.api.Idempotent;
 import io.github.jonloucks.concurrency.api.StateMachine;
 import io.github.jonloucks.concurrency.api.StateMachineFactory;
+import io.github.jonloucks.concurrency.api.Waitable;
 import io.github.jonloucks.contracts.api.AutoClose;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,14 +17,23 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static io.github.jonloucks.concurrency.test.Tools.assumeStateMachineFactory;
+import static io.github.jonloucks.concurrency.test.Tools.measureAllocatedBytes;
 import static io.github.jonloucks.concurrency.test.Tools.withConcurrency;
 import static io.github.jonloucks.contracts.test.Tools.*;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,7 +41,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
-@SuppressWarnings("CodeBlock2Expr")
+@SuppressWarnings({"CodeBlock2Expr", "OptionalGetWithoutIsPresent"})
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public interface StateMachineTests {
@@ -50,6 +64,109 @@ public interface StateMachineTests {
         assertFalse(transition.getFailedValue().isPresent());
         assertFalse(transition.getErrorState().isPresent());
         assertFalse(transition.getFailedState().isPresent());
+        assertFalse(transition.isStackless());
+    }
+    
+    @Test
+    default void stateMachine_transition_Stackless_ThrowsWithoutStackTrace() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("stopped")
+                .state("running")
+                .rule("stopped", (event, goal) -> false)
+            );
+            
+            final ConcurrencyException stackless = assertThrows(ConcurrencyException.class,
+                () -> stateMachine.transition(b -> b.event("start").successState("running").stackless(true)));
+            final ConcurrencyException normal = assertThrows(ConcurrencyException.class,
+                () -> stateMachine.transition(b -> b.event("start").successState("running")));
+            
+            assertEquals(0, stackless.getStackTrace().length);
+            assertNotEquals(0, normal.getStackTrace().length);
+            assertEquals(normal.getMessage(), stackless.getMessage());
+            assertEquals("Illegal state transition from stopped to running.", stackless.getMessage());
+            assertEquals("stopped", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_rule_Defaults() {
+        final StateMachine.Rule<String> rule = (event, goal) -> true;
+        
+        assertFalse(rule.isPure());
+        assertTrue(rule.canEverTransition("goal"));
+    }
+    
+    @Test
+    default void stateMachine_rule_Pure_Works() {
+        final StateMachine.Rule<String> rule = StateMachine.Rule.pure(new StateMachine.Rule<String>() {
+            @Override
+            public boolean canTransition(String event, String goal) {
+                return "go".equals(event);
+            }
+            
+            @Override
+            public boolean canEverTransition(String goal) {
+                return !"never".equals(goal);
+            }
+        });
+        
+        assertTrue(rule.isPure());
+        assertTrue(rule.canTransition("go", "goal"));
+        assertFalse(rule.canTransition("stay", "goal"));
+        assertFalse(rule.canEverTransition("never"));
+        assertThrown(IllegalArgumentException.class,
+            () -> StateMachine.Rule.pure(null),
+            "Rule must be present.");
+    }
+    
+    @Test
+    default void stateMachine_isTransitionAllowed_WithPureRule_RemembersDecisions() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final int[] pureCalls = {0};
+            final int[] impureCalls = {0};
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("a")
+                .state("b")
+                .state("c")
+                .rule("a", StateMachine.Rule.pure((event, goal) -> ++pureCalls[0] > 0 && "b".equals(goal)))
+                .rule("b", (event, goal) -> ++impureCalls[0] > 0 && "c".equals(goal))
+            );
+            
+            for (int i = 0; i < 10; i++) {
+                assertTrue(stateMachine.isTransitionAllowed("go", "b"));
+                assertFalse(stateMachine.isTransitionAllowed("go", "c"));
+            }
+            assertEquals(2, pureCalls[0]);
+            assertTrue(stateMachine.isTransitionAllowed("other", "b"));
+            assertEquals(3, pureCalls[0]);
+            
+            assertTrue(stateMachine.setState("go", "b"));
+            for (int i = 0; i < 10; i++) {
+                assertTrue(stateMachine.isTransitionAllowed("go", "c"));
+            }
+            assertEquals(10, impureCalls[0]);
+        });
+    }
+    
+    @Test
+    default void stateMachine_isTransitionAllowed_WithPureRuleAndManyEvents_Works() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("a")
+                .state("b")
+                .rule("a", StateMachine.Rule.pure((event, goal) -> event.endsWith("0")))
+            );
+            
+            for (int i = 0; i < 1_000; i++) {
+                final String event = "event-" + i;
+                assertEquals(i % 10 == 0, stateMachine.isTransitionAllowed(event, "b"));
+                assertEquals(i % 10 == 0, stateMachine.isTransitionAllowed(event, "b"));
+            }
+        });
     }
     
     @Test
@@ -89,6 +206,44 @@ public interface StateMachineTests {
         });
     }
     
+    @Test
+    default void stateMachine_createTemplate_WithInvalid_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.createTemplate((StateMachine.Config<String>) null),
+                "Config must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.createTemplate((Consumer<StateMachine.Config.Builder<String>>)null),
+                "Builder consumer must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.createTemplate(b -> {}),
+                "Initial state must be present.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_createTemplate_CreatesIndependentStateMachines() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine.Template<Thread.State> template = factory.createTemplate(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .rule(Thread.State.TERMINATED, (event, goal) -> false)
+            );
+            
+            final StateMachine<Thread.State> first = template.create();
+            final StateMachine<Thread.State> second = template.create();
+            
+            assertNotSame(first, second);
+            assertTrue(first.setState("terminate", Thread.State.TERMINATED));
+            assertFalse(first.setState("start", Thread.State.RUNNABLE));
+            assertEquals(Thread.State.NEW, second.getState());
+            assertTrue(second.setState("start", Thread.State.RUNNABLE));
+            assertEquals(Thread.State.TERMINATED, first.getState());
+        });
+    }
+    
     @Test
     default void stateMachine_create_WithInitial_Works() {
         withConcurrency((contracts,concurrency) -> {
@@ -411,6 +566,817 @@ public interface StateMachineTests {
         });
     }
     
+    @Test
+    default void stateMachine_parent_EntersInitialChild() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("idle")
+                .parent("starting", "running")
+                .parent("busy", "running")
+                .initial("running", "starting")
+            );
+            
+            assertTrue(stateMachine.hasState("running"));
+            assertTrue(stateMachine.isInState("idle"));
+            assertFalse(stateMachine.isInState("running"));
+            assertTrue(stateMachine.setState("start", "running"));
+            assertEquals("starting", stateMachine.getState());
+            assertTrue(stateMachine.isInState("running"));
+            assertTrue(stateMachine.isInState("starting"));
+            assertFalse(stateMachine.isInState("busy"));
+            assertTrue(stateMachine.setState("work", "busy"));
+            assertTrue(stateMachine.isInState("running"));
+        });
+    }
+    
+    @Test
+    default void stateMachine_parent_InheritsRulesWhenLeaving() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("starting")
+                .state("idle")
+                .state("stopped")
+                .parent("starting", "running")
+                .parent("busy", "running")
+                .rule("running", (event, goal) -> "stopped".equals(goal))
+            );
+            
+            assertTrue(stateMachine.isTransitionAllowed("work", "busy"));
+            assertFalse(stateMachine.isTransitionAllowed("rest", "idle"));
+            assertTrue(stateMachine.isTransitionAllowed("stop", "stopped"));
+            assertTrue(stateMachine.setState("work", "busy"));
+            assertFalse(stateMachine.setState("rest", "idle"));
+            assertTrue(stateMachine.setState("stop", "stopped"));
+            assertFalse(stateMachine.isInState("running"));
+        });
+    }
+    
+    @Test
+    default void stateMachine_parent_WithCycle_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial("a").parent("a", "b").parent("b", "a")),
+                "State hierarchy must not have cycles.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_initialChild_NotChild_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial("a").initial("a", "b")),
+                "Initial child state must be a child of the composite state.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_createWithBuild_WithNullParent_Throws() {
+        withConcurrency((contracts, concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            factory.create(b -> {
+                b.initial(1);
+                
+                assertFalse(b.getParent(1).isPresent());
+                assertFalse(b.getInitial(1).isPresent());
+                assertThrown(IllegalArgumentException.class,
+                    () -> b.parent(1, null),
+                    "Parent state must be present.");
+                assertThrown(IllegalArgumentException.class,
+                    () -> b.initial(1, null),
+                    "Initial child state must be present.");
+            });
+        });
+    }
+    
+    @Test
+    default void stateMachine_transitionAsync_WithDefaultExecutor_Works() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+            );
+            
+            final Completable<String> completable = stateMachine.transitionAsync(b -> b
+                .event("prepare")
+                .successState(Thread.State.RUNNABLE)
+                .successValue(() -> "done")
+            );
+            final Waitable<Boolean> completed = concurrency.createWaitable(false);
+            
+            try (AutoClose closeNotify = completable.notifyState().notifyIf(Completion.State::isCompleted, s -> completed.accept(true))) {
+                ignore(closeNotify);
+                assertTrue(completed.getWhen(Boolean.TRUE::equals, Duration.ofSeconds(10)).isPresent());
+            }
+            assertEquals(Completion.State.SUCCEEDED, completable.getCompletion().get().getState());
+            assertEquals("done", completable.getCompletion().get().getValue().get());
+            assertEquals(Thread.State.RUNNABLE, stateMachine.getState());
+        });
+    }
+    
+    @ParameterizedTest
+    @MethodSource("io.github.jonloucks.concurrency.test.Internal#getThrowingParameters")
+    default void stateMachine_transitionAsync_SuccessThrows_EntersErrorState(Runnable throwingBlock) {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .executor(Runnable::run)
+            );
+            
+            final Completable<Object> completable = stateMachine.transitionAsync(b -> b
+                .event("prepare")
+                .successState(Thread.State.RUNNABLE)
+                .successValue(throwingBlock)
+                .errorState(Thread.State.TERMINATED)
+            );
+            
+            assertEquals(Completion.State.FAILED, completable.getCompletion().get().getState());
+            assertEquals(Thread.State.TERMINATED, stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_transitionAsync_NotAllowed_Fails() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .rule(Thread.State.NEW, (e, s) -> s != Thread.State.RUNNABLE)
+                .executor(Runnable::run)
+            );
+            
+            final Completable<Object> completable = stateMachine.transitionAsync(b -> b
+                .event("prepare")
+                .successState(Thread.State.RUNNABLE)
+                .failedState(Thread.State.TERMINATED)
+            );
+            
+            assertEquals(Completion.State.FAILED, completable.getCompletion().get().getState());
+            assertEquals(Thread.State.TERMINATED, stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_transitionAsync_ExecutorRejects_Fails() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .executor(r -> { throw new RejectedExecutionException("Rejected."); })
+            );
+            
+            final Completable<Object> completable = stateMachine.transitionAsync(b -> b
+                .event("prepare")
+                .successState(Thread.State.RUNNABLE)
+            );
+            
+            assertEquals(Completion.State.FAILED, completable.getCompletion().get().getState());
+            assertEquals(Thread.State.NEW, stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_transitionAsync_WithNullTransition_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create("initial");
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.transitionAsync((StateMachine.Transition<String, Object>) null),
+                "Transition must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial("initial").executor(null)),
+                "Executor must be present.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_applyAll_StopsAtFirstNotAllowed() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .rule(Thread.State.BLOCKED, (e, s) -> s != Thread.State.WAITING)
+            );
+            final List<Thread.State> notified = new ArrayList<>();
+            
+            try (AutoClose closeNotify = stateMachine.notifyIf(s -> true, notified::add)) {
+                ignore(closeNotify);
+                final int applied = stateMachine.applyAll(Arrays.asList(
+                    new SimpleEntry<>("start", Thread.State.RUNNABLE),
+                    new SimpleEntry<>("block", Thread.State.BLOCKED),
+                    new SimpleEntry<>("wait", Thread.State.WAITING),
+                    new SimpleEntry<>("end", Thread.State.TERMINATED)));
+                
+                assertEquals(2, applied);
+                assertEquals(Thread.State.BLOCKED, stateMachine.getState());
+                assertEquals(Arrays.asList(Thread.State.NEW, Thread.State.BLOCKED), notified);
+            }
+        });
+    }
+    
+    @Test
+    default void stateMachine_applyAll_WithAllAllowed_AppliesAll() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+            );
+            
+            assertEquals(0, stateMachine.applyAll(emptyList()));
+            assertEquals(2, stateMachine.applyAll(Arrays.asList(
+                new SimpleEntry<>("start", Thread.State.RUNNABLE),
+                new SimpleEntry<>("end", Thread.State.TERMINATED))));
+            assertEquals(Thread.State.TERMINATED, stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_applyAll_WithInvalid_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("a").state("b"));
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.applyAll(null),
+                "Events must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.applyAll(singletonList(null)),
+                "Event must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.applyAll(Arrays.asList(new SimpleEntry<>("go", "b"), new SimpleEntry<>("go", "c"))),
+                "State must be known.");
+            assertEquals("a", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_tryTransition_ReportsOutcome() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("idle")
+                .state("running")
+                .state("stopped")
+                .rule("running", (event, goal) -> "stopped".equals(goal))
+            );
+            final List<String> notified = new ArrayList<>();
+            
+            try (AutoClose closeNotify = stateMachine.notifyIf(s -> true, notified::add)) {
+                ignore(closeNotify);
+                assertEquals(StateMachine.TransitionResult.UNKNOWN_STATE, stateMachine.tryTransition("go", "unknown"));
+                assertEquals(StateMachine.TransitionResult.SAME_STATE, stateMachine.tryTransition("rest", "idle"));
+                assertEquals(StateMachine.TransitionResult.OK, stateMachine.tryTransition("start", "running"));
+                assertEquals(StateMachine.TransitionResult.ILLEGAL, stateMachine.tryTransition("rest", "idle"));
+                assertEquals(StateMachine.TransitionResult.SAME_STATE, stateMachine.tryTransition("start", "running"));
+                assertEquals(StateMachine.TransitionResult.OK, stateMachine.tryTransition("stop", "stopped"));
+                assertEquals("stopped", stateMachine.getState());
+                assertEquals(Arrays.asList("idle", "running", "stopped"), notified);
+            }
+        });
+    }
+    
+    @Test
+    default void stateMachine_tryTransition_DoesNotAllocate() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("idle").state("running"));
+            final int calls = 100_000;
+            
+            final long bytes = measureAllocatedBytes(calls, () -> {
+                stateMachine.tryTransition("start", "running");
+                stateMachine.tryTransition("start", "running");
+                stateMachine.tryTransition("stop", "idle");
+            });
+            
+            assertEquals("idle", stateMachine.getState());
+            assertTrue(bytes < calls, bytes + " bytes for " + calls + " calls.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_tryTransition_WithInvalid_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("a").state("b"));
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.tryTransition(null, "b"),
+                "Event must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.tryTransition("go", null));
+            assertEquals("a", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_prepare_ExecutesRepeatedly() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("idle").state("running"));
+            final int[] starts = {0};
+            final StateMachine.PreparedTransition<Integer> start = stateMachine.prepare(b -> b
+                .event("start")
+                .successState("running")
+                .successValue(() -> ++starts[0])
+                .failedValue(() -> -1));
+            final StateMachine.PreparedTransition<Integer> stop = stateMachine.prepare(b -> b
+                .event("stop")
+                .successState("idle"));
+            
+            assertEquals(Integer.valueOf(1), start.execute());
+            assertEquals(Integer.valueOf(-1), start.execute());
+            assertNull(stop.execute());
+            assertEquals(Integer.valueOf(2), start.execute());
+            assertEquals("running", stateMachine.getState());
+            assertNull(stop.execute());
+            assertThrown(ConcurrencyException.class, stop::execute,
+                "Illegal state transition from idle to idle.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_transition_ChangedBeforeCommit_Fails() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("idle").state("running"));
+            final StateMachine.PreparedTransition<String> start = stateMachine.prepare(b -> b
+                .event("start")
+                .successState("running")
+                .successValue(() -> stateMachine.setState("other", "running") ? "started" : "unexpected")
+                .failedValue(() -> "rejected"));
+            
+            assertEquals("rejected", start.execute());
+            assertTrue(stateMachine.setState("stop", "idle"));
+            assertEquals("rejected", stateMachine.transition(b -> b
+                .event("start")
+                .successState("running")
+                .successValue(() -> stateMachine.setState("other", "running") ? "started" : "unexpected")
+                .failedValue(() -> "rejected")));
+            assertEquals("running", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_prepare_WithInvalid_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("a").state("b"));
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.prepare((StateMachine.Transition<String, String>) null),
+                "Transition must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.prepare(b -> b.event("go").successState("c")),
+                "State must be known.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.prepare(b -> b.event("go").successState("b").failedState("c")),
+                "State must be known.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.prepare(b -> b.successState("b")),
+                "Event must be present.");
+            assertEquals("a", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_prepare_Execute_DoesNotAllocate() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("idle").state("running"));
+            final StateMachine.PreparedTransition<String> start = stateMachine.prepare(b -> b
+                .event("start")
+                .successState("running")
+                .successValue(() -> "started")
+                .failedValue(() -> "rejected"));
+            final StateMachine.PreparedTransition<String> stop = stateMachine.prepare(b -> b
+                .event("stop")
+                .successState("idle")
+                .failedValue(() -> "rejected"));
+            final int calls = 100_000;
+            
+            final long bytes = measureAllocatedBytes(calls, () -> {
+                start.execute();
+                start.execute();
+                stop.execute();
+            });
+            
+            assertEquals("idle", stateMachine.getState());
+            assertTrue(bytes < calls, bytes + " bytes for " + calls + " calls.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_setStateAsync_SingleWriter_AppliesInOrder() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final List<Runnable> submitted = new ArrayList<>();
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .executor(submitted::add)
+                .singleWriter(true)
+            );
+            
+            final Completable<Boolean> first = stateMachine.setStateAsync("start", Thread.State.RUNNABLE);
+            final Completable<Boolean> second = stateMachine.setStateAsync("wait", Thread.State.WAITING);
+            final Completable<Boolean> third = stateMachine.setStateAsync("wait", Thread.State.WAITING);
+            
+            assertEquals(1, submitted.size());
+            assertFalse(first.isCompleted());
+            submitted.get(0).run();
+            
+            assertEquals(Thread.State.WAITING, stateMachine.getState());
+            assertTrue(first.getCompletion().get().getValue().get());
+            assertTrue(second.getCompletion().get().getValue().get());
+            assertFalse(third.getCompletion().get().getValue().get());
+            
+            stateMachine.setStateAsync("end", Thread.State.TERMINATED);
+            assertEquals(2, submitted.size());
+        });
+    }
+    
+    @Test
+    default void stateMachine_setStateAsync_SingleWriterRejects_Fails() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .executor(r -> { throw new RejectedExecutionException("Rejected."); })
+                .singleWriter(true)
+            );
+            
+            final Completable<Boolean> completable = stateMachine.setStateAsync("start", Thread.State.RUNNABLE);
+            
+            assertEquals(Completion.State.FAILED, completable.getCompletion().get().getState());
+            assertEquals(Thread.State.NEW, stateMachine.getState());
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.setStateAsync("start", null),
+                "Rule must be present.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_setStateAsync_SingleWriterRejectsWhileQueued_FailsAll() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final List<Completable<Boolean>> queued = new ArrayList<>();
+            final List<StateMachine<Thread.State>> holder = new ArrayList<>();
+            final StateMachine<Thread.State> stateMachine = factory.create(b -> b
+                .initial(Thread.State.NEW)
+                .states(Arrays.asList(Thread.State.values()))
+                .executor(r -> {
+                    // another producer queues while the drain is being scheduled
+                    queued.add(holder.get(0).setStateAsync("block", Thread.State.BLOCKED));
+                    throw new RejectedExecutionException("Rejected.");
+                })
+                .singleWriter(true)
+            );
+            holder.add(stateMachine);
+            
+            final Completable<Boolean> completable = stateMachine.setStateAsync("start", Thread.State.RUNNABLE);
+            
+            assertEquals(Completion.State.FAILED, completable.getCompletion().get().getState());
+            assertEquals(1, queued.size());
+            assertEquals(Completion.State.FAILED, queued.get(0).getCompletion().get().getState());
+            assertTrue(queued.get(0).getCompletion().get().getThrown().get() instanceof RejectedExecutionException);
+            assertEquals(Thread.State.NEW, stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_setStateAsync_ManyProducers_Works() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Integer> stateMachine = factory.create(b -> b
+                .initial(0)
+                .states(Arrays.asList(0, 1, 2, 3))
+                .singleWriter(true)
+            );
+            final List<Completable<Boolean>> completables = new CopyOnWriteArrayList<>();
+            final Thread[] producers = new Thread[8];
+            for (int i = 0; i < producers.length; i++) {
+                final Integer state = i % 4;
+                producers[i] = new Thread(() -> {
+                    for (int n = 0; n < 100; n++) {
+                        completables.add(stateMachine.setStateAsync("set", state));
+                    }
+                });
+                producers[i].start();
+            }
+            for (Thread producer : producers) {
+                assertDoesNotThrow(() -> producer.join());
+            }
+            
+            for (Completable<Boolean> completable : completables) {
+                final Waitable<Completion.State> completed = concurrency.createWaitable(Completion.State.PENDING);
+                try (AutoClose closeNotify = completable.notifyState().notifyIf(Completion.State::isCompleted, completed::accept)) {
+                    ignore(closeNotify);
+                    assertEquals(Completion.State.SUCCEEDED, completed.getWhen(Completion.State::isCompleted, Duration.ofSeconds(10)).get());
+                }
+            }
+        });
+    }
+    
+    @Test
+    default void stateMachine_getWhenReachable_Unreachable_ReturnsEmptyWithoutWaiting() {
+        withConcurrency((contracts,concurrency) -> {
+            assumeStateMachineFactory(contracts);
+            final StateMachine<Completion.State> stateMachine = Completion.State.createStateMachine(contracts);
+            assertTrue(stateMachine.setState("succeed", Completion.State.SUCCEEDED));
+            
+            final Instant start = Instant.now();
+            final Optional<Completion.State> state = stateMachine.getWhenReachable(Completion.State.FAILED::equals, Duration.ofMinutes(5));
+            
+            assertFalse(state.isPresent());
+            assertTrue(Duration.between(start, Instant.now()).compareTo(Duration.ofMinutes(1)) < 0);
+        });
+    }
+    
+    @Test
+    default void stateMachine_getWhen_OnlyTestsCurrentState() {
+        withConcurrency((contracts,concurrency) -> {
+            assumeStateMachineFactory(contracts);
+            final StateMachine<Completion.State> stateMachine = Completion.State.createStateMachine(contracts);
+            assertTrue(stateMachine.setState("succeed", Completion.State.SUCCEEDED));
+            final List<Completion.State> tested = new ArrayList<>();
+            
+            final Optional<Completion.State> state = stateMachine.getWhen(value -> {
+                tested.add(value);
+                return value == Completion.State.FAILED;
+            }, Duration.ofMillis(20));
+            
+            assertFalse(state.isPresent());
+            assertFalse(tested.isEmpty());
+            tested.forEach(value -> assertEquals(Completion.State.SUCCEEDED, value));
+        });
+    }
+    
+    @Test
+    default void stateMachine_analyze_Works() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Idempotent> stateMachine = Idempotent.createStateMachine(contracts);
+            final StateMachine.Analysis<Idempotent> analysis = stateMachine.analyze();
+            
+            assertEquals(singletonList(Idempotent.DESTROYED), analysis.getTerminalStates());
+            assertTrue(analysis.getDeadStates().isEmpty());
+            assertTrue(analysis.isReachable(Idempotent.OPENABLE, Idempotent.DESTROYED));
+            assertFalse(analysis.isReachable(Idempotent.DESTROYED, Idempotent.OPENABLE));
+            assertFalse(Idempotent.DESTROYED.canEverTransition(Idempotent.OPENABLE));
+            
+            final StateMachine<Integer> unknown = factory.create(b -> b
+                .initial(0)
+                .states(Arrays.asList(1, 2))
+                .rule(2, new StateMachine.Rule<Integer>() {
+                    @Override
+                    public boolean canTransition(String event, Integer goal) {
+                        return false;
+                    }
+                    
+                    @Override
+                    public boolean canEverTransition(Integer goal) {
+                        return false;
+                    }
+                })
+            );
+            assertThrown(IllegalArgumentException.class,
+                () -> unknown.analyze().isReachable(0, 7),
+                "State must be known.");
+            assertEquals(singletonList(2), unknown.analyze().getTerminalStates());
+        });
+    }
+    
+    @Test
+    default void stateMachine_timeout_WhenStateNotLeft_Transitions() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Integer> stateMachine = factory.create(b -> b
+                .initial(0)
+                .states(Arrays.asList(1, 2))
+                .timeout(1, Duration.ofMillis(20), "expire", 2)
+            );
+            
+            assertTrue(stateMachine.setState("start", 1));
+            
+            assertEquals(Optional.of(2), stateMachine.getWhen(Integer.valueOf(2)::equals, Duration.ofSeconds(10)));
+        });
+    }
+    
+    @Test
+    default void stateMachine_notifyOnTransition_OnlyMatchingEdge() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("idle")
+                .state("running")
+                .state("failed")
+            );
+            final List<StateMachine.TransitionEvent<String>> anyEvent = new ArrayList<>();
+            final List<StateMachine.TransitionEvent<String>> crashEvent = new ArrayList<>();
+            final List<StateMachine.TransitionEvent<String>> otherEdge = new ArrayList<>();
+            final Instant start = Instant.now();
+            
+            try (AutoClose closeAny = stateMachine.notifyOnTransition("running", "failed", null, anyEvent::add);
+                 AutoClose closeCrash = stateMachine.notifyOnTransition("running", "failed", "crash", crashEvent::add);
+                 AutoClose closeOther = stateMachine.notifyOnTransition("failed", "idle", null, otherEdge::add)) {
+                ignore(closeAny);
+                ignore(closeCrash);
+                ignore(closeOther);
+                assertTrue(stateMachine.setState("start", "running"));
+                assertTrue(stateMachine.setState("timeout", "failed"));
+                assertEquals(StateMachine.TransitionResult.OK, stateMachine.tryTransition("restart", "running"));
+                assertEquals("crashed", stateMachine.transition(b -> b
+                    .event("crash")
+                    .successState("failed")
+                    .successValue(() -> "crashed")));
+            }
+            assertTrue(stateMachine.setState("reset", "idle"));
+            
+            assertEquals(2, anyEvent.size());
+            assertEquals("running", anyEvent.get(0).getFrom());
+            assertEquals("failed", anyEvent.get(0).getTo());
+            assertEquals("timeout", anyEvent.get(0).getEvent());
+            assertFalse(anyEvent.get(0).getTimestamp().isBefore(start));
+            assertEquals("crash", anyEvent.get(1).getEvent());
+            assertEquals(1, crashEvent.size());
+            assertSame(anyEvent.get(1), crashEvent.get(0));
+            assertTrue(otherEdge.isEmpty());
+        });
+    }
+    
+    @Test
+    default void stateMachine_notifyOnTransition_WithApplyAllAndTimeout_Works() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Integer> stateMachine = factory.create(b -> b
+                .initial(0)
+                .states(Arrays.asList(1, 2, 3))
+                .timeout(2, Duration.ofMillis(20), "expire", 3)
+            );
+            final List<StateMachine.TransitionEvent<Integer>> applied = new CopyOnWriteArrayList<>();
+            final List<StateMachine.TransitionEvent<Integer>> skipped = new CopyOnWriteArrayList<>();
+            final List<StateMachine.TransitionEvent<Integer>> expired = new CopyOnWriteArrayList<>();
+            
+            try (AutoClose closeFirst = stateMachine.notifyOnTransition(0, 1, null, applied::add);
+                 AutoClose closeSecond = stateMachine.notifyOnTransition(1, 2, null, applied::add);
+                 AutoClose closeSkipped = stateMachine.notifyOnTransition(0, 2, null, skipped::add);
+                 AutoClose closeExpired = stateMachine.notifyOnTransition(2, 3, "expire", expired::add)) {
+                ignore(closeFirst);
+                ignore(closeSecond);
+                ignore(closeSkipped);
+                ignore(closeExpired);
+                assertEquals(2, stateMachine.applyAll(Arrays.asList(
+                    new SimpleEntry<>("first", 1),
+                    new SimpleEntry<>("second", 2))));
+                
+                assertEquals(Optional.of(3), stateMachine.getWhen(Integer.valueOf(3)::equals, Duration.ofSeconds(10)));
+                assertEquals(2, applied.size());
+                assertEquals("first", applied.get(0).getEvent());
+                assertEquals("second", applied.get(1).getEvent());
+                assertTrue(skipped.isEmpty());
+                assertEquals(1, expired.size());
+                assertEquals(Integer.valueOf(2), expired.get(0).getFrom());
+            }
+        });
+    }
+    
+    @Test
+    default void stateMachine_notifyOnTransition_WithApplyAllReturning_ReportsEachStep() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("a").state("b"));
+            final List<String> events = new ArrayList<>();
+            
+            try (AutoClose closeOut = stateMachine.notifyOnTransition("a", "b", null, e -> events.add(e.getEvent()));
+                 AutoClose closeBack = stateMachine.notifyOnTransition("b", "a", null, e -> events.add(e.getEvent()))) {
+                ignore(closeOut);
+                ignore(closeBack);
+                assertEquals(2, stateMachine.applyAll(Arrays.asList(
+                    new SimpleEntry<>("out", "b"),
+                    new SimpleEntry<>("back", "a"))));
+            }
+            
+            assertEquals(Arrays.asList("out", "back"), events);
+            assertEquals("a", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_notifyOnTransition_WithCompositeState_Works() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("idle")
+                .parent("starting", "running")
+                .initial("running", "starting")
+            );
+            final List<StateMachine.TransitionEvent<String>> started = new ArrayList<>();
+            
+            try (AutoClose closeStarted = stateMachine.notifyOnTransition("idle", "running", null, started::add)) {
+                ignore(closeStarted);
+                assertTrue(stateMachine.setState("start", "running"));
+            }
+            
+            assertEquals(1, started.size());
+            assertEquals("starting", started.get(0).getTo());
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.notifyOnTransition("running", "idle", null, e -> {}),
+                "From state must not be composite.");
+        });
+    }
+    
+    @Test
+    default void stateMachine_notifyOnTransition_WithInvalid_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b.initial("a").state("b"));
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.notifyOnTransition("a", "b", null, null),
+                "Listener must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.notifyOnTransition("a", "c", null, e -> {}),
+                "State must be known.");
+            assertThrown(IllegalArgumentException.class,
+                () -> stateMachine.notifyOnTransition(null, "b", null, e -> {}));
+        });
+    }
+    
+    @Test
+    default void stateMachine_timeout_WhenStateLeft_IsCancelled() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<Integer> stateMachine = factory.create(b -> b
+                .initial(0)
+                .states(Arrays.asList(1, 2))
+                .timeout(0, Duration.ofMillis(50), "expire", 2)
+            );
+            
+            assertTrue(stateMachine.setState("start", 1));
+            
+            assertFalse(stateMachine.getWhen(Integer.valueOf(2)::equals, Duration.ofMillis(200)).isPresent());
+            assertEquals(Integer.valueOf(1), stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_timeout_OfComposite_RunsWhileWithin() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final StateMachine<String> stateMachine = factory.create(b -> b
+                .initial("idle")
+                .state("failed")
+                .parent("starting", "running")
+                .parent("busy", "running")
+                .rule("failed", (event, goal) -> false)
+                .timeout("running", Duration.ofMillis(100), "expire", "failed")
+            );
+            final Instant deadline = Instant.now().plusSeconds(10);
+            
+            assertTrue(stateMachine.setState("start", "running"));
+            String next = "busy";
+            while (Instant.now().isBefore(deadline) && stateMachine.setState("work", next)) {
+                next = "busy".equals(next) ? "starting" : "busy";
+                assertDoesNotThrow(() -> Thread.sleep(10));
+            }
+            
+            assertEquals("failed", stateMachine.getState());
+        });
+    }
+    
+    @Test
+    default void stateMachine_timeout_WithInvalid_Throws() {
+        withConcurrency((contracts,concurrency) -> {
+            final StateMachineFactory factory = assumeStateMachineFactory(contracts);
+            final Duration duration = Duration.ofSeconds(1);
+            
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial(0).timeout(null, duration, "expire", 1)),
+                "Rule must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial(0).timeout(0, null, "expire", 1)),
+                "Timeout must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial(0).timeout(0, duration, null, 1)),
+                "Event must be present.");
+            assertThrown(IllegalArgumentException.class,
+                () -> factory.create(b -> b.initial(0).timeout(0, duration, "expire", null)),
+                "Timeout state must be present.");
+        });
+    }
+    
     @Test
     default void stateMachine_notifyIf_WithValid_Works(@Mock Consumer<Thread.State> listener) {
         withConcurrency((contracts,concurrency)-> {
@@ -18,6 +18,8 @@ public interface Tests extends
     IdempotentTests,
     InternalTests,
     StateMachineTests,
+    StateMachineSnapshotTests,
+    StateMachineJournalTests,
     ToolsTests,
     ValidateTests,
     WaitableTests
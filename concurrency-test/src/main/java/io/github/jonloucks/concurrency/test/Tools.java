@@ -5,6 +5,7 @@ import io.github.jonloucks.contracts.api.Contracts;
 import io.github.jonloucks.concurrency.api.*;
 import org.opentest4j.TestAbortedException;
 
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.ServiceLoader;
 import java.util.function.BiConsumer;
@@ -12,6 +13,7 @@ import java.util.function.Consumer;
 
 import static io.github.jonloucks.concurrency.api.GlobalConcurrency.findConcurrencyFactory;
 import static io.github.jonloucks.contracts.test.Tools.*;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
@@ -78,6 +80,49 @@ public final class Tools {
         return contracts.claim(StateMachineFactory.CONTRACT);
     }
     
+    /**
+     * Measure the bytes the current thread allocates while making calls, after making as many calls to warm up.
+     * Measuring is opt-in with the system property {@value #ALLOCATION_PROPERTY}, since a collection or compilation
+     * during the calls can be counted too. The HotSpot thread bean is reached by reflection, so this module
+     * does not depend on jdk.management.
+     *
+     * @param calls the number of calls to measure
+     * @param call the call
+     * @return the number of bytes allocated by the measured calls
+     */
+    public static long measureAllocatedBytes(int calls, Runnable call) {
+        assumeTrue(Boolean.getBoolean(ALLOCATION_PROPERTY), "Allocation is only measured when " + ALLOCATION_PROPERTY + " is true.");
+        final Object threads;
+        final Method allocatedBytes;
+        try {
+            threads = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+            final Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            assumeTrue(type.isInstance(threads)
+                    && (Boolean) type.getMethod("isThreadAllocatedMemorySupported").invoke(threads)
+                    && (Boolean) type.getMethod("isThreadAllocatedMemoryEnabled").invoke(threads),
+                "Thread allocation measurement is not available.");
+            allocatedBytes = type.getMethod("getThreadAllocatedBytes", long.class);
+        } catch (ReflectiveOperationException thrown) {
+            throw new TestAbortedException("Thread allocation measurement is not available.");
+        }
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < calls; i++) {
+            call.run();
+        }
+        return assertDoesNotThrow(() -> {
+            final long before = (Long) allocatedBytes.invoke(threads, threadId);
+            for (int i = 0; i < calls; i++) {
+                call.run();
+            }
+            return (Long) allocatedBytes.invoke(threads, threadId) - before;
+        });
+    }
+    
+    /**
+     * The system property that enables {@link #measureAllocatedBytes(int, Runnable)}
+     */
+    public static final String ALLOCATION_PROPERTY = "concurrency.test.allocation";
+    
     /**
      * Utility class instantiation protection
      */